@@ -32,6 +32,11 @@ public @interface DbField {
 
     boolean index() default false;
 
+    /**
+     * Collation of the index, like "NOCASE" to make Where.Field#startsWithIgnoreCase use it
+     */
+    String indexCollation() default "";
+
     boolean unique() default false;
 
     boolean notNull() default false;
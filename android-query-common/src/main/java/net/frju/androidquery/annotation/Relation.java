@@ -0,0 +1,26 @@
+package net.frju.androidquery.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A field filled with the related models by queryAndInit(), which loads them with one query for all the parents.
+ * Its type is either a model, or a java.util.List of models.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Relation {
+    /**
+     * @return the column of the related model which references this model
+     */
+    String foreignColumn();
+
+    /**
+     * @return the column of this model referenced by the related models, the primary key by default
+     */
+    String localColumn() default "";
+
+    String setterName() default "";
+}
@@ -10,6 +10,7 @@ import net.frju.androidquery.annotation.TypeConverter;
 import net.frju.androidquery.preprocessor.processor.data.Data;
 import net.frju.androidquery.preprocessor.processor.data.parse.ParseAnnotations;
 import net.frju.androidquery.preprocessor.processor.data.validator.PrimaryKeyMustBeUnique;
+import net.frju.androidquery.preprocessor.processor.data.validator.RelationsMustTargetModels;
 import net.frju.androidquery.preprocessor.processor.data.validator.TableNamesMustBeUniqueValidator;
 import net.frju.androidquery.preprocessor.processor.freemarker.DataModel;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.FormatConstantMethod;
@@ -117,7 +118,8 @@ public class Processor extends AbstractProcessor {
     private Validator[] getValidators(Data data) {
         return new Validator[]{
                 new TableNamesMustBeUniqueValidator(data),
-                new PrimaryKeyMustBeUnique(data)
+                new PrimaryKeyMustBeUnique(data),
+                new RelationsMustTargetModels(data)
         };
     }
 
@@ -10,6 +10,7 @@ public class DbField {
     private String mGetterName;
     private String mSetterName;
     private boolean mIsIndex;
+    private String mIndexCollation;
     private boolean mIsUnique;
     private boolean mIsNotNull;
     private int mUniqueGroup;
@@ -73,6 +74,14 @@ public class DbField {
         mIsIndex = newVal;
     }
 
+    public String getIndexCollation() {
+        return mIndexCollation;
+    }
+
+    public void setIndexCollation(String newVal) {
+        mIndexCollation = newVal;
+    }
+
     public boolean isUnique() {
         return mIsUnique;
     }
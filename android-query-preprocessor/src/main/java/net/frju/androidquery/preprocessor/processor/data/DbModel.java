@@ -15,6 +15,7 @@ public class DbModel {
     private List<DbField> mDbFields;
     private List<String> mInitMethodNames;
     private List<ForeignKey> mForeignKeys;
+    private List<Relation> mRelations;
     private TypeMirror mDatabaseProvider;
     private boolean mHasLocalDatabaseProvider;
 
@@ -113,6 +114,14 @@ public class DbModel {
         mForeignKeys = newVal;
     }
 
+    public List<Relation> getRelations() {
+        return mRelations;
+    }
+
+    public void setRelations(List<Relation> newVal) {
+        mRelations = newVal;
+    }
+
     public TypeMirror getDatabaseProvider() {
         return mDatabaseProvider;
     }
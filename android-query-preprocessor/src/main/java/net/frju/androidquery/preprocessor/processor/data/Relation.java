@@ -0,0 +1,64 @@
+package net.frju.androidquery.preprocessor.processor.data;
+
+public class Relation {
+    private DbField mField;
+    private String mRelatedType;
+    private boolean mIsToMany;
+    private boolean mIsLazy;
+    private String mLocalColumn;
+    private String mForeignColumn;
+
+    /**
+     * @return the annotated field, only its name, setter and visibility are set
+     */
+    public DbField getField() {
+        return mField;
+    }
+
+    public void setField(DbField newVal) {
+        mField = newVal;
+    }
+
+    public String getRelatedType() {
+        return mRelatedType;
+    }
+
+    public void setRelatedType(String newVal) {
+        mRelatedType = newVal;
+    }
+
+    public boolean isToMany() {
+        return mIsToMany;
+    }
+
+    public void setIsToMany(boolean newVal) {
+        mIsToMany = newVal;
+    }
+
+    /**
+     * @return true if the field is a Lazy handle, loaded on first access instead of by queryAndInit()
+     */
+    public boolean isLazy() {
+        return mIsLazy;
+    }
+
+    public void setIsLazy(boolean newVal) {
+        mIsLazy = newVal;
+    }
+
+    public String getLocalColumn() {
+        return mLocalColumn;
+    }
+
+    public void setLocalColumn(String newVal) {
+        mLocalColumn = newVal;
+    }
+
+    public String getForeignColumn() {
+        return mForeignColumn;
+    }
+
+    public void setForeignColumn(String newVal) {
+        mForeignColumn = newVal;
+    }
+}
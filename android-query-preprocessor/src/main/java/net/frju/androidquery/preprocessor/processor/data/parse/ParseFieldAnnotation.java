@@ -19,6 +19,7 @@ class ParseFieldAnnotation {
         dbField.setGetterName(assembleGetterName(element));
         dbField.setSetterName(assembleSetterName(element));
         dbField.setIsIndex(assembleIsIndex(element));
+        dbField.setIndexCollation(assembleIndexCollation(element));
         dbField.setIsUnique(assembleIsUnique(element));
         dbField.setIsNotNull(assembleIsNotNull(element));
         dbField.setUniqueGroup(assembleUniqueGroup(element));
@@ -66,6 +67,11 @@ class ParseFieldAnnotation {
         return dbField.index();
     }
 
+    private static String assembleIndexCollation(Element element) {
+        net.frju.androidquery.annotation.DbField dbField = element.getAnnotation(net.frju.androidquery.annotation.DbField.class);
+        return dbField.indexCollation();
+    }
+
     private static boolean assembleIsUnique(Element element) {
         net.frju.androidquery.annotation.DbField dbField = element.getAnnotation(net.frju.androidquery.annotation.DbField.class);
         return dbField.unique();
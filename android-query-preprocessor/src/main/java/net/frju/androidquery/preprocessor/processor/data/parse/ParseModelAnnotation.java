@@ -4,12 +4,14 @@ import net.frju.androidquery.preprocessor.processor.Context;
 import net.frju.androidquery.preprocessor.processor.data.DbField;
 import net.frju.androidquery.preprocessor.processor.data.DbModel;
 import net.frju.androidquery.preprocessor.processor.data.ForeignKey;
+import net.frju.androidquery.preprocessor.processor.data.Relation;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
@@ -20,6 +22,9 @@ import static net.frju.androidquery.preprocessor.processor.data.parse.ParseField
 
 class ParseModelAnnotation {
 
+    private static final String LIST_TYPE = "java.util.List";
+    private static final String LAZY_TYPE = "net.frju.androidquery.database.Lazy";
+
     static DbModel parseModel(Element element) {
 
         String name = assembleName(element);
@@ -34,6 +39,7 @@ class ParseModelAnnotation {
         dbModel.setType(tablePackage + "." + name);
         dbModel.setFields(assembleColumns(element));
         dbModel.setForeignKeys(assembleForeignKeys(element));
+        dbModel.setRelations(assembleRelations(element));
         dbModel.setDatabaseProvider(mirror);
         dbModel.setHasLocalDatabaseProvider(assembleHasLocalDatabaseProvider(mirror));
         dbModel.setInitMethodNames(assembleInitMethods(element));
@@ -103,6 +109,39 @@ class ParseModelAnnotation {
         return initMethods;
     }
 
+    private static List<Relation> assembleRelations(Element element) {
+        List<Relation> relations = new ArrayList<>();
+
+        for (Element childElement : Context.getInstance().getElementUtils().getAllMembers((TypeElement) element)) {
+            net.frju.androidquery.annotation.Relation annotation = childElement.getAnnotation(net.frju.androidquery.annotation.Relation.class);
+            if (childElement.getKind().isField() && annotation != null) {
+                DbField field = new DbField();
+                field.setName(childElement.getSimpleName().toString());
+                field.setSetterName(annotation.setterName());
+                field.setIsPublicField(childElement.getModifiers().contains(Modifier.PUBLIC));
+
+                String type = childElement.asType().toString();
+                boolean isLazy = type.startsWith(LAZY_TYPE + "<") && type.endsWith(">");
+                if (isLazy) {
+                    type = type.substring(LAZY_TYPE.length() + 1, type.length() - 1);
+                }
+                boolean isToMany = type.startsWith(LIST_TYPE + "<") && type.endsWith(">");
+
+                Relation relation = new Relation();
+                relation.setField(field);
+                relation.setIsToMany(isToMany);
+                relation.setIsLazy(isLazy);
+                relation.setRelatedType(isToMany ? type.substring(LIST_TYPE.length() + 1, type.length() - 1) : type);
+                relation.setLocalColumn(annotation.localColumn());
+                relation.setForeignColumn(annotation.foreignColumn());
+
+                relations.add(relation);
+            }
+        }
+
+        return relations;
+    }
+
     private static List<ForeignKey> assembleForeignKeys(Element element) {
         net.frju.androidquery.annotation.DbModel dbModelAnnotation = element.getAnnotation(net.frju.androidquery.annotation.DbModel.class);
         net.frju.androidquery.annotation.ForeignKey[] foreignKeysAnnotation = dbModelAnnotation.foreignKeys();
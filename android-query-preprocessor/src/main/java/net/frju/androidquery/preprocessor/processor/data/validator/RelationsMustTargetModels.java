@@ -0,0 +1,69 @@
+package net.frju.androidquery.preprocessor.processor.data.validator;
+
+import net.frju.androidquery.preprocessor.processor.Validator;
+import net.frju.androidquery.preprocessor.processor.ValidatorException;
+import net.frju.androidquery.preprocessor.processor.data.Data;
+import net.frju.androidquery.preprocessor.processor.data.DbField;
+import net.frju.androidquery.preprocessor.processor.data.DbModel;
+import net.frju.androidquery.preprocessor.processor.data.Relation;
+
+public class RelationsMustTargetModels implements Validator {
+
+    private final Data mData;
+
+    public RelationsMustTargetModels(Data data) {
+        this.mData = data;
+    }
+
+    private DbModel getModel(String type) {
+        for (DbModel dbModel : mData.getTables()) {
+            if (dbModel.getType().equals(type)) {
+                return dbModel;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean hasColumn(DbModel dbModel, String columnDbName) {
+        for (DbField dbField : dbModel.getMutableFields(mData.getTables())) {
+            if (dbField.getDbName().equals(columnDbName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void validate() throws ValidatorException {
+        for (DbModel dbModel : mData.getTables()) {
+            for (Relation relation : dbModel.getRelations()) {
+                String fieldName = dbModel.getName() + "." + relation.getField().getName();
+
+                DbModel relatedModel = getModel(relation.getRelatedType());
+                if (relatedModel == null) {
+                    throw new ValidatorException(
+                            dbModel.getElement(),
+                            "[The @Relation `" + fieldName + "` must be a @DbModel or a java.util.List of @DbModel]"
+                    );
+                }
+
+                if (relation.getLocalColumn().isEmpty() ? !dbModel.hasPrimaryKey() : !hasColumn(dbModel, relation.getLocalColumn())) {
+                    throw new ValidatorException(
+                            dbModel.getElement(),
+                            "[The @Relation `" + fieldName + "` localColumn must be a column of `" + dbModel.getName()
+                                    + "`, or be omitted if it has a primaryKey]"
+                    );
+                }
+
+                if (!hasColumn(relatedModel, relation.getForeignColumn())) {
+                    throw new ValidatorException(
+                            dbModel.getElement(),
+                            "[The @Relation `" + fieldName + "` foreignColumn must be a column of `" + relatedModel.getName() + "`]"
+                    );
+                }
+            }
+        }
+    }
+}
@@ -10,7 +10,11 @@ import net.frju.androidquery.preprocessor.processor.freemarker.method.GetContent
 import net.frju.androidquery.preprocessor.processor.freemarker.method.GetCursorGetterMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.GetPrimaryKeySetterMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.GetPrimaryKeyValueMethod;
+import net.frju.androidquery.preprocessor.processor.freemarker.method.GetRelationKeyMethod;
+import net.frju.androidquery.preprocessor.processor.freemarker.method.GetStatementBinderMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.IsPrimaryKeyAutoIncrementMethod;
+import net.frju.androidquery.preprocessor.processor.freemarker.method.JoinIdentitiesMethod;
+import net.frju.androidquery.preprocessor.processor.freemarker.method.JoinColumnNamesMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.JoinReferencesMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.JoinSettersMethod;
 
@@ -32,7 +36,9 @@ public class DataModel {
         map.put(TABLES, data.getTables());
         map.putAll(GetCursorGetterMethod.getMethodMap(data));
         map.putAll(GetContentValueMethod.getMethodMap(data));
+        map.putAll(GetStatementBinderMethod.getMethodMap(data));
         map.putAll(GetPrimaryKeyValueMethod.getMethodMap(data));
+        map.putAll(GetRelationKeyMethod.getMethodMap(data));
         map.putAll(GetPrimaryKeySetterMethod.getMethodMap());
         map.putAll(GetColumnSetterMethod.getMethodMap());
         map.putAll(IsPrimaryKeyAutoIncrementMethod.getMethodMap());
@@ -41,6 +47,8 @@ public class DataModel {
         map.putAll(FormatConstantMethod.getMethodMap());
         map.putAll(JoinSettersMethod.getMethodMap(data));
         map.putAll(JoinReferencesMethod.getMethodMap());
+        map.putAll(JoinIdentitiesMethod.getMethodMap(data));
+        map.putAll(JoinColumnNamesMethod.getMethodMap());
 
         return map;
     }
@@ -31,48 +31,55 @@ public class GetPrimaryKeyValueMethod implements TemplateMethodModelEx {
         mData = data;
     }
 
-    private String assemblePrimaryKeyValue(String varName, DbModel dbModel) {
+    static String assemblePrimaryKeyValue(Data data, String varName, DbModel dbModel) {
         for (DbField dbField : dbModel.getFields()) {
             if (dbField.hasPrimaryKey()) {
-                TypeConverter converter = mData.getConverterFromClass(dbField.getType());
-                if (converter != null) {
-                    return "new " + converter.getName() + "().convertToDb(" + StringUtils.getGetter(varName, dbField) + ")";
-                }
-
-                String result = StringUtils.getGetter(varName, dbField);
-                switch (dbField.getType()) {
-                    case "long":
-                        result = "java.lang.Long.valueOf(" + result + ")";
-                        break;
-                    case "int":
-                        result = "java.lang.Integer.valueOf(" + result + ")";
-                        break;
-                    case "short":
-                        result = "java.lang.Short.valueOf(" + result + ")";
-                        break;
-                    case "double":
-                        result = "java.lang.Double.valueOf(" + result + ")";
-                        break;
-                    case "float":
-                        result = "java.lang.Float.valueOf(" + result + ")";
-                        break;
-                    case "java.lang.Long":
-                    case "java.lang.Integer":
-                    case "java.lang.Short":
-                    case "java.lang.Double":
-                    case "java.lang.Float":
-                    case "java.lang.String":
-                        break; // Nothing to do
-                    default:
-                        throw new IllegalStateException("PrimaryKey can not have the type: " + dbField.getType());
-                }
-                return result;
+                return assembleValue(data, varName, dbField);
             }
         }
 
         return "null";
     }
 
+    /**
+     * @return the boxed database value of a field usable as key (primary key or referenced column)
+     */
+    static String assembleValue(Data data, String varName, DbField dbField) {
+        TypeConverter converter = data.getConverterFromClass(dbField.getType());
+        if (converter != null) {
+            return "new " + converter.getName() + "().convertToDb(" + StringUtils.getGetter(varName, dbField) + ")";
+        }
+
+        String result = StringUtils.getGetter(varName, dbField);
+        switch (dbField.getType()) {
+            case "long":
+                result = "java.lang.Long.valueOf(" + result + ")";
+                break;
+            case "int":
+                result = "java.lang.Integer.valueOf(" + result + ")";
+                break;
+            case "short":
+                result = "java.lang.Short.valueOf(" + result + ")";
+                break;
+            case "double":
+                result = "java.lang.Double.valueOf(" + result + ")";
+                break;
+            case "float":
+                result = "java.lang.Float.valueOf(" + result + ")";
+                break;
+            case "java.lang.Long":
+            case "java.lang.Integer":
+            case "java.lang.Short":
+            case "java.lang.Double":
+            case "java.lang.Float":
+            case "java.lang.String":
+                break; // Nothing to do
+            default:
+                throw new IllegalStateException("PrimaryKey or @Relation column can not have the type: " + dbField.getType());
+        }
+        return result;
+    }
+
     @Override
     public Object exec(List arguments) throws TemplateModelException {
         Object var = arguments.get(0);
@@ -91,6 +98,6 @@ public class GetPrimaryKeyValueMethod implements TemplateMethodModelEx {
                     "net.frju.androidquery.preprocessor.processor.data.DbModel");
         }
 
-        return assemblePrimaryKeyValue(varName, dbModel);
+        return assemblePrimaryKeyValue(mData, varName, dbModel);
     }
 }
@@ -0,0 +1,71 @@
+package net.frju.androidquery.preprocessor.processor.freemarker.method;
+
+import net.frju.androidquery.preprocessor.processor.data.Data;
+import net.frju.androidquery.preprocessor.processor.data.DbField;
+import net.frju.androidquery.preprocessor.processor.data.DbModel;
+import net.frju.androidquery.preprocessor.processor.data.Relation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.ext.beans.StringModel;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModelException;
+
+/**
+ * Value of the local column of a relation, which is the primary key by default
+ */
+public class GetRelationKeyMethod implements TemplateMethodModelEx {
+
+    private static final String GET_RELATION_KEY = "getRelationKey";
+
+    private final Data mData;
+
+    public static Map<String, Object> getMethodMap(Data data) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(GET_RELATION_KEY, new GetRelationKeyMethod(data));
+        return map;
+    }
+
+    private GetRelationKeyMethod(Data data) {
+        mData = data;
+    }
+
+    private String assembleRelationKey(String varName, DbModel dbModel, Relation relation) {
+        if (relation.getLocalColumn().isEmpty()) {
+            return GetPrimaryKeyValueMethod.assemblePrimaryKeyValue(mData, varName, dbModel);
+        }
+
+        for (DbField dbField : dbModel.getFields()) {
+            if (dbField.getDbName().equals(relation.getLocalColumn())) {
+                return GetPrimaryKeyValueMethod.assembleValue(mData, varName, dbField);
+            }
+        }
+
+        return "null";
+    }
+
+    @Override
+    public Object exec(List arguments) throws TemplateModelException {
+        Object var = arguments.get(0);
+        String varName = var instanceof SimpleScalar ?
+                var.toString() :
+                String.valueOf(var);
+
+        Object tableValue = arguments.get(1);
+        Object relationValue = arguments.get(2);
+
+        if (!(tableValue instanceof StringModel) || !(relationValue instanceof StringModel)) {
+            throw new IllegalStateException("The getRelationKey arguments must be type of " +
+                    "net.frju.androidquery.preprocessor.processor.data.DbModel and " +
+                    "net.frju.androidquery.preprocessor.processor.data.Relation");
+        }
+
+        DbModel dbModel = (DbModel) ((StringModel) tableValue).getAdaptedObject(DbModel.class);
+        Relation relation = (Relation) ((StringModel) relationValue).getAdaptedObject(Relation.class);
+
+        return assembleRelationKey(varName, dbModel, relation);
+    }
+}
@@ -0,0 +1,122 @@
+package net.frju.androidquery.preprocessor.processor.freemarker.method;
+
+import net.frju.androidquery.preprocessor.processor.data.Data;
+import net.frju.androidquery.preprocessor.processor.data.DbField;
+import net.frju.androidquery.preprocessor.processor.data.TypeConverter;
+import net.frju.androidquery.preprocessor.processor.utils.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.ext.beans.StringModel;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
+
+public class GetStatementBinderMethod implements TemplateMethodModelEx {
+
+    private static final String GET_STATEMENT_BINDER = "getStatementBinder";
+    // prefixed so that it cannot hide the model variable, named after the model class
+    private static final String VALUE_VAR = "__value";
+
+    private final Data mData;
+
+    public static Map<String, Object> getMethodMap(Data data) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(GET_STATEMENT_BINDER, new GetStatementBinderMethod(data));
+        return map;
+    }
+
+    private GetStatementBinderMethod(Data data) {
+        mData = data;
+    }
+
+    /**
+     * Build the code binding the value of a field to a compiled statement, without any boxing for primitive types
+     *
+     * @param varName the model variable name
+     * @param dbField the field to bind
+     * @param index   the 1-based index of the bind argument
+     * @return the binding statement(s)
+     */
+    private String assembleStatementBinder(String varName, DbField dbField, int index) {
+        String value = StringUtils.getGetter(varName, dbField);
+        String sqlType = dbField.getType();
+
+        TypeConverter converter = mData.getConverterFromClass(dbField.getType());
+        if (converter != null) {
+            value = "new " + converter.getName() + "().convertToDb(" + value + ")";
+            sqlType = converter.getDbClassName();
+        }
+
+        switch (sqlType) {
+            case "long":
+            case "int":
+            case "short":
+                return "statement.bindLong(" + index + ", " + value + ");";
+            case "boolean":
+                return "statement.bindLong(" + index + ", " + value + " ? 1 : 0);";
+            case "double":
+            case "float":
+                return "statement.bindDouble(" + index + ", " + value + ");";
+            case "java.lang.Long":
+            case "java.lang.Integer":
+            case "java.lang.Short":
+                return assembleNullableBinder(sqlType, value, index, "statement.bindLong(" + index + ", " + VALUE_VAR + ");");
+            case "java.lang.Boolean":
+                return assembleNullableBinder(sqlType, value, index, "statement.bindLong(" + index + ", " + VALUE_VAR + " ? 1 : 0);");
+            case "java.lang.Double":
+            case "java.lang.Float":
+                return assembleNullableBinder(sqlType, value, index, "statement.bindDouble(" + index + ", " + VALUE_VAR + ");");
+            case "java.lang.String":
+                return assembleNullableBinder(sqlType, value, index, "statement.bindString(" + index + ", " + VALUE_VAR + ");");
+            case "byte[]":
+                return assembleNullableBinder(sqlType, value, index, "statement.bindBlob(" + index + ", " + VALUE_VAR + ");");
+            default:
+                return "android.database.DatabaseUtils.bindObjectToProgram(statement, " + index + ", " + value + ");";
+        }
+    }
+
+    private String assembleNullableBinder(String type, String value, int index, String binder) {
+        return "{" + System.getProperty("line.separator") +
+                type + " " + VALUE_VAR + " = " + value + ";" + System.getProperty("line.separator") +
+                "if (" + VALUE_VAR + " == null) {" + System.getProperty("line.separator") +
+                "statement.bindNull(" + index + ");" + System.getProperty("line.separator") +
+                "} else {" + System.getProperty("line.separator") +
+                binder + System.getProperty("line.separator") +
+                "}" + System.getProperty("line.separator") +
+                "}";
+    }
+
+    @Override
+    public Object exec(List arguments) throws TemplateModelException {
+        Object var = arguments.get(0);
+        String varName = var instanceof SimpleScalar ?
+                var.toString() :
+                String.valueOf(var);
+
+        Object columnValue = arguments.get(1);
+
+        DbField dbField;
+        if (columnValue instanceof StringModel) {
+            StringModel stringModel = (StringModel) columnValue;
+            dbField = (DbField) stringModel.getAdaptedObject(DbField.class);
+        } else {
+            throw new IllegalStateException("The getStatementBinder argument must be type of " +
+                    "net.frju.androidquery.preprocessor.processor.data.DbField");
+        }
+
+        Object indexValue = arguments.get(2);
+
+        int index;
+        if (indexValue instanceof TemplateNumberModel) {
+            index = ((TemplateNumberModel) indexValue).getAsNumber().intValue();
+        } else {
+            throw new IllegalStateException("The getStatementBinder index argument must be a number");
+        }
+
+        return assembleStatementBinder(varName, dbField, index);
+    }
+}
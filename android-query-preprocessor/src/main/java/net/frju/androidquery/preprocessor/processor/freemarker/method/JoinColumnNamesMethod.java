@@ -0,0 +1,62 @@
+package net.frju.androidquery.preprocessor.processor.freemarker.method;
+
+import net.frju.androidquery.preprocessor.processor.data.DbField;
+import net.frju.androidquery.preprocessor.processor.data.DbModel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModelException;
+
+/**
+ * Returns the quoted aliases of the joined columns, in the same order than the cases generated by JoinSettersMethod
+ */
+public class JoinColumnNamesMethod implements TemplateMethodModelEx {
+
+    private static final String JOIN_COLUMN_NAMES = "joinColumnNames";
+
+    public static Map<String, Object> getMethodMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put(JOIN_COLUMN_NAMES, new JoinColumnNamesMethod());
+        return map;
+    }
+
+    private JoinColumnNamesMethod() {
+    }
+
+    private void build(String joinTableName, List<DbModel> dbModels, List<String> columnNames) {
+        for (DbModel dbModel : dbModels) {
+            if (dbModel.getName().toLowerCase().equals(joinTableName.toLowerCase())) {
+                for (DbField dbField : dbModel.getFields()) {
+                    if (dbField.isJoinable(dbModels)) {
+                        build(dbField.getClassName(), dbModels, columnNames);
+                    } else {
+                        columnNames.add("\"" + Util.getJoinColumnAlias(dbModel, dbField) + "\"");
+                    }
+                }
+
+                break;
+            }
+        }
+    }
+
+    @Override
+    public Object exec(List arguments) throws TemplateModelException {
+        Object joinTableNameValue = arguments.get(0);
+        Object tablesValue = arguments.get(1);
+
+        String joinTableName = joinTableNameValue instanceof SimpleScalar ?
+                joinTableNameValue.toString() :
+                String.valueOf(joinTableNameValue);
+
+        List<DbModel> dbModels = Util.getTables(tablesValue);
+
+        List<String> columnNames = new ArrayList<>();
+        build(joinTableName, dbModels, columnNames);
+        return columnNames;
+    }
+}
@@ -0,0 +1,127 @@
+package net.frju.androidquery.preprocessor.processor.freemarker.method;
+
+import net.frju.androidquery.preprocessor.processor.data.Data;
+import net.frju.androidquery.preprocessor.processor.data.DbField;
+import net.frju.androidquery.preprocessor.processor.data.DbModel;
+import net.frju.androidquery.preprocessor.processor.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModelException;
+
+/**
+ * Replaces the joined models created by joinReferences with the instances known by the identityMap variable
+ */
+public class JoinIdentitiesMethod implements TemplateMethodModelEx {
+
+    private static final String JOIN_IDENTITIES = "joinIdentities";
+
+    private final Data mData;
+
+    public static Map<String, Object> getMethodMap(Data data) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(JOIN_IDENTITIES, new JoinIdentitiesMethod(data));
+        return map;
+    }
+
+    private JoinIdentitiesMethod(Data data) {
+        mData = data;
+    }
+
+    private void build(String joinTableName, List<DbModel> dbModels, List<String> statements) {
+        DbModel joinDbModel = getTableFromName(joinTableName, dbModels);
+
+        if (joinDbModel != null) {
+            for (DbField dbField : joinDbModel.getFields()) {
+                if (dbField.isJoinable(dbModels)) {
+                    DbModel columnDbModel = dbField.getRootTable(dbModels);
+                    statements.add(buildJoinIdentity(joinDbModel, dbField, columnDbModel));
+                    build(dbField.getClassName(), dbModels, statements);
+                }
+            }
+        }
+    }
+
+    private DbModel getTableFromName(String tableName, List<DbModel> dbModels) {
+        for (DbModel dbModel : dbModels) {
+            if (dbModel.getName().toLowerCase().equals(tableName.toLowerCase())) {
+                return dbModel;
+            }
+        }
+
+        return null;
+    }
+
+    private String buildJoinIdentity(DbModel joinDbModel, DbField dbField, DbModel dbModel) {
+        String varName = dbModel.getName().toLowerCase();
+        String lineSeparator = System.getProperty("line.separator");
+
+        String replacement = varName +
+                " = identityMap.getUnique(" +
+                dbModel.getPackage() +
+                "." +
+                dbModel.getName() +
+                ".class, " +
+                GetPrimaryKeyValueMethod.assemblePrimaryKeyValue(mData, varName, dbModel) +
+                ", " +
+                varName +
+                ");" +
+                lineSeparator +
+                StringUtils.getSetter(joinDbModel.getName().toLowerCase(), varName, dbField) +
+                ";" +
+                lineSeparator;
+
+        DbField primaryKey = getPrimaryKey(dbModel);
+        if (primaryKey == null) {
+            return replacement;
+        }
+
+        // the joined model is an empty placeholder when its join is not part of the query or found no row
+        String indexName = varName + "PrimaryKeyIndex";
+        return "int " + indexName + " = cursor.getColumnIndex(\"" + Util.getJoinColumnAlias(dbModel, primaryKey) + "\");" +
+                lineSeparator +
+                "if (" + indexName + " != -1 && !cursor.isNull(" + indexName + ")) {" +
+                lineSeparator +
+                replacement +
+                "}" +
+                lineSeparator;
+    }
+
+    private DbField getPrimaryKey(DbModel dbModel) {
+        for (DbField dbField : dbModel.getFields()) {
+            if (dbField.hasPrimaryKey()) {
+                return dbField;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Object exec(List arguments) throws TemplateModelException {
+        Object joinTableNameValue = arguments.get(0);
+        Object tablesValue = arguments.get(1);
+
+        String joinTableName = joinTableNameValue instanceof SimpleScalar ?
+                joinTableNameValue.toString() :
+                String.valueOf(joinTableNameValue);
+
+        List<DbModel> dbModels = Util.getTables(tablesValue);
+
+        List<String> statements = new ArrayList<>();
+        build(joinTableName, dbModels, statements);
+
+        // the nested models must be replaced before their parent, which may be dropped for a known instance
+        StringBuilder sb = new StringBuilder();
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            sb.append(statements.get(i));
+        }
+
+        return sb.toString();
+    }
+}
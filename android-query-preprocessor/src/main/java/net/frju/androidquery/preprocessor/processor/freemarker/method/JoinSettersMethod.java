@@ -12,6 +12,7 @@ import java.util.Map;
 import freemarker.template.SimpleScalar;
 import freemarker.template.TemplateMethodModelEx;
 import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
 
 public class JoinSettersMethod implements TemplateMethodModelEx {
 
@@ -29,7 +30,7 @@ public class JoinSettersMethod implements TemplateMethodModelEx {
         mData = data;
     }
 
-    private String build(String joinTableName, List<DbModel> dbModels) {
+    private String build(String joinTableName, List<DbModel> dbModels, int[] mappedIndex) {
         StringBuilder sb = new StringBuilder();
 
         for (DbModel dbModel : dbModels) {
@@ -37,19 +38,19 @@ public class JoinSettersMethod implements TemplateMethodModelEx {
                 List<DbField> dbFields = dbModel.getFields();
                 for (DbField dbField : dbFields) {
                     if (dbField.isJoinable(dbModels)) {
-                        sb.append(build(dbField.getClassName(), dbModels));
+                        sb.append(build(dbField.getClassName(), dbModels, mappedIndex));
                     } else {
-                        sb.append("} else if (cursor.getColumnName(x).equals(\"")
-                                .append(dbModel.getDbName())
-                                .append("_")
-                                .append(dbField.getName())
-                                .append("\")) {")
+                        sb.append("case ")
+                                .append(mappedIndex[0]++)
+                                .append(": // ")
+                                .append(Util.getJoinColumnAlias(dbModel, dbField))
                                 .append(System.getProperty("line.separator"))
                                 .append(StringUtils.getSetter(dbModel.getName().toLowerCase(), StringUtils.assembleTypeGetter(mData, dbField.getType()), dbField))
-                                .append(";");
+                                .append(";")
+                                .append(System.getProperty("line.separator"))
+                                .append("break;")
+                                .append(System.getProperty("line.separator"));
                     }
-
-                    sb.append(System.getProperty("line.separator"));
                 }
 
                 break;
@@ -68,14 +69,17 @@ public class JoinSettersMethod implements TemplateMethodModelEx {
                 joinTableNameValue.toString() :
                 String.valueOf(joinTableNameValue);
 
-        List<DbModel> dbModels = Util.getTables(tablesValue);
+        Object firstMappedIndexValue = arguments.get(2);
 
-        String join = build(joinTableName, dbModels);
-        if (join.length() > 0) {
-            // remove the trailing "}"
-            join = join.substring(0,join.length()-1);
+        int firstMappedIndex;
+        if (firstMappedIndexValue instanceof TemplateNumberModel) {
+            firstMappedIndex = ((TemplateNumberModel) firstMappedIndexValue).getAsNumber().intValue();
+        } else {
+            throw new IllegalStateException("The join firstMappedIndex argument must be a number");
         }
 
-        return join;
+        List<DbModel> dbModels = Util.getTables(tablesValue);
+
+        return build(joinTableName, dbModels, new int[]{firstMappedIndex});
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package net.frju.androidquery.preprocessor.processor.freemarker.method;
 
+import net.frju.androidquery.preprocessor.processor.data.DbField;
 import net.frju.androidquery.preprocessor.processor.data.DbModel;
 
 import java.util.ArrayList;
@@ -26,4 +27,11 @@ class Util {
 
         return dbModels;
     }
+
+    /**
+     * The alias of a joined column, as built by ClauseHelper#buildJoinQuery
+     */
+    static String getJoinColumnAlias(DbModel dbModel, DbField dbField) {
+        return dbModel.getDbName() + "_" + dbField.getDbName();
+    }
 }
@@ -1,6 +1,7 @@
 package ${package_name};
 
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 import android.content.ContentValues;
 import android.net.Uri;
 import android.support.annotation.NonNull;
@@ -27,6 +28,35 @@ import java.util.List;
     ${table.getPackage()}.${table.getName()}
 </#assign>
 
+<#assign insertColumns = []>
+<#list table.getMutableFields(tables) as column>
+    <#if !column.hasAutoIncrement()>
+        <#assign insertColumns = insertColumns + [column]>
+    </#if>
+</#list>
+
+<#list table.getFields() as column>
+    <#if column.hasPrimaryKey()>
+        <#assign primaryKeyColumn = column>
+    </#if>
+</#list>
+
+<#-- mappedColumnNames holds the cursor column names in the order of the generated switch cases -->
+<#assign mappedColumnNames = []>
+<#assign retrieveSQLSelectResults>
+    <#list table.getFields() as column>
+        <#if column.isJoinable(tables)>
+            ${join(column.getClassName(), tables, mappedColumnNames?size)}
+            <#assign mappedColumnNames = mappedColumnNames + joinColumnNames(column.getClassName(), tables)>
+        <#else>
+            case ${mappedColumnNames?size?c}:
+                ${getColumnSetter(table.getName()?lower_case, getCursorGetter(column.getType()), column)};
+                break;
+            <#assign mappedColumnNames = mappedColumnNames + [formatConstant(column.getName())]>
+        </#if>
+    </#list>
+</#assign>
+
 public class ${formatConstant(table.getName())} implements DbModelDescriptor {
 
     <#list table.getFields() as column>
@@ -81,34 +111,44 @@ public class ${formatConstant(table.getName())} implements DbModelDescriptor {
 
         <#list table.getMutableFields(tables) as column>
             <#if column.isIndex()>
-                sb.append("CREATE INDEX ${table.getName()}_${column.getName()}_index ON ${table.getDbName()} (${column.getDbName()});");
+                sb.append("CREATE INDEX ${table.getName()}_${column.getName()}_index ON ${table.getDbName()} (${column.getDbName()}<#if column.getIndexCollation()?has_content> COLLATE ${column.getIndexCollation()}</#if>);");
             </#if>
         </#list>
 
         return (sb.length() > 0) ? sb.toString() : null;
     }
 
+    private static final ColumnIndexCache sColumnIndexCache = new ColumnIndexCache(${mappedColumnNames?join(", ")});
+
     @Override
     public @Nullable ${packagedTableName} getSingleResult(@Nullable Cursor cursor) {
+        return getSingleResult(cursor, null);
+    }
+
+    @Override
+    public @Nullable ${packagedTableName} getSingleResult(@Nullable Cursor cursor, @Nullable IdentityMap identityMap) {
         if (cursor != null){
             ${packagedTableName} ${table.getName()?lower_case} = new ${packagedTableName}();
 
             ${joinReferences(table.getName(),tables)}
 
-            for (int x = 0; x < cursor.getColumnCount(); x++) {
-                <#assign retrieveSQLSelectResults>
-                    <#list table.getFields() as column>
-                        <#if column.isJoinable(tables)>
-                            ${join(column.getClassName(),tables)}
-                        <#else>
-                            } else if (cursor.getColumnName(x).equals(${formatConstant(column.getName())})) {
-                                ${getColumnSetter(table.getName()?lower_case, getCursorGetter(column.getType()), column)};
-                        </#if>
-                    </#list>
-                    }
-                </#assign>
-
-                ${retrieveSQLSelectResults?trim?remove_beginning("} else ")}
+            int[] mappedIndexes = sColumnIndexCache.getMappedIndexes(cursor);
+            for (int x = 0; x < mappedIndexes.length; x++) {
+                switch (mappedIndexes[x]) {
+                    ${retrieveSQLSelectResults}
+                }
+            }
+
+            <#list table.getRelations() as relation>
+            <#if relation.isLazy()>
+            <#assign lazyType><#if relation.isToMany()>List<${relation.getRelatedType()}><#else>${relation.getRelatedType()}</#if></#assign>
+            ${getColumnSetter(table.getName()?lower_case, "new Lazy<" + lazyType + ">(" + relation.getRelatedType() + ".class, \"" + relation.getForeignColumn() + "\", " + getRelationKey(table.getName()?lower_case, table, relation) + ", " + relation.isToMany()?c + ", Q.getResolver())", relation.getField())};
+            </#if>
+            </#list>
+
+            if (identityMap != null) {
+                ${joinIdentities(table.getName(), tables)}
+                return identityMap.getUnique(${packagedTableName}.class, ${getPrimaryKeyValue(table.getName()?lower_case, table)}, ${table.getName()?lower_case});
             }
 
             return ${table.getName()?lower_case};
@@ -119,12 +159,17 @@ public class ${formatConstant(table.getName())} implements DbModelDescriptor {
 
     @Override
     public @NonNull ${packagedTableName}[] getArrayResult(@Nullable Cursor cursor) {
+        return getArrayResult(cursor, null);
+    }
+
+    @Override
+    public @NonNull ${packagedTableName}[] getArrayResult(@Nullable Cursor cursor, @Nullable IdentityMap identityMap) {
         if (cursor != null){
             ${packagedTableName}[]result = new ${packagedTableName}[cursor.getCount()];
 
             cursor.moveToFirst();
             for(int i=0;!cursor.isAfterLast();i++){
-                result[i]=getSingleResult(cursor);
+                result[i]=getSingleResult(cursor, identityMap);
                 cursor.moveToNext();
             }
 
@@ -136,6 +181,26 @@ public class ${formatConstant(table.getName())} implements DbModelDescriptor {
         return new ${packagedTableName}[]{}; // empty array
     }
 
+    @Override
+    public void loadRelations(@NonNull Object[] models, @NonNull Resolver resolver) {
+        <#list table.getRelations() as relation>
+        <#if !relation.isLazy()>
+        {
+            <#assign localColumn = relation.getLocalColumn()?has_content?then(relation.getLocalColumn(), table.getPrimaryKeyDbName())>
+            List<${relation.getRelatedType()}>[] related = Relations.load(this, models, "${localColumn}", ${relation.getRelatedType()}.class, "${relation.getForeignColumn()}", resolver);
+            for (int i = 0; i < models.length; i++) {
+                ${packagedTableName} ${table.getName()?lower_case} = (${packagedTableName}) models[i];
+                <#if relation.isToMany()>
+                ${getColumnSetter(table.getName()?lower_case, "related[i]", relation.getField())};
+                <#else>
+                ${getColumnSetter(table.getName()?lower_case, "related[i].isEmpty() ? null : related[i].get(0)", relation.getField())};
+                </#if>
+            }
+        }
+        </#if>
+        </#list>
+    }
+
     @Override
     public @NonNull String[] getColumnNames() {
         return new String[]{${getColumnNames?remove_ending(",")}};
@@ -181,6 +246,75 @@ public class ${formatConstant(table.getName())} implements DbModelDescriptor {
         return contentValues;
     }
 
+    @Override
+    public @NonNull String getInsertQuery(@NonNull Query.ConflictResolution conflictResolution) {
+        <#if insertColumns?size == 0>
+        return "INSERT OR " + conflictResolution + " INTO ${table.getDbName()} DEFAULT VALUES";
+        <#else>
+        return "INSERT OR " + conflictResolution + " INTO ${table.getDbName()} (<#list insertColumns as column>${column.getDbName()}<#sep>,</#sep></#list>) VALUES (<#list insertColumns as column>?<#sep>,</#sep></#list>)";
+        </#if>
+    }
+
+    @Override
+    public void bindTo(@NonNull SQLiteStatement statement, @NonNull Object model) {
+        ${packagedTableName} ${table.getName()?lower_case} = (${packagedTableName})model;
+
+        <#list insertColumns as column>
+        ${getStatementBinder(table.getName()?lower_case, column, column?index + 1)}
+        </#list>
+    }
+
+    @Override
+    public @Nullable String getUpsertQuery(@NonNull Query.ConflictResolution conflictResolution) {
+        <#if table.hasPrimaryKey()>
+        <#assign updatedColumns = []>
+        <#list insertColumns as column>
+            <#if !column.hasPrimaryKey()>
+                <#assign updatedColumns = updatedColumns + [column]>
+            </#if>
+        </#list>
+        <#assign upsertColumns = insertColumns>
+        <#if primaryKeyColumn.hasAutoIncrement()>
+            <#assign upsertColumns = insertColumns + [primaryKeyColumn]>
+        </#if>
+        return "INSERT OR " + conflictResolution + " INTO ${table.getDbName()} (<#list upsertColumns as column>${column.getDbName()}<#sep>,</#sep></#list>) VALUES (<#list upsertColumns as column>?<#sep>,</#sep></#list>) ON CONFLICT(${primaryKeyColumn.getDbName()}) <#if updatedColumns?size == 0>DO NOTHING<#else>DO UPDATE SET <#list updatedColumns as column>${column.getDbName()}=excluded.${column.getDbName()}<#sep>,</#sep></#list></#if>";
+        <#else>
+        return null;
+        </#if>
+    }
+
+    @Override
+    public @NonNull String getInsertWithPrimaryKeyQuery(@NonNull Query.ConflictResolution conflictResolution) {
+        <#if table.hasPrimaryKey() && primaryKeyColumn.hasAutoIncrement()>
+        <#assign insertWithKeyColumns = insertColumns + [primaryKeyColumn]>
+        return "INSERT OR " + conflictResolution + " INTO ${table.getDbName()} (<#list insertWithKeyColumns as column>${column.getDbName()}<#sep>,</#sep></#list>) VALUES (<#list insertWithKeyColumns as column>?<#sep>,</#sep></#list>)";
+        <#else>
+        return getInsertQuery(conflictResolution);
+        </#if>
+    }
+
+    @Override
+    public @Nullable String getUpdateQuery(@NonNull Query.ConflictResolution conflictResolution) {
+        <#if table.hasPrimaryKey()>
+        <#if insertColumns?size == 0>
+        return "UPDATE OR " + conflictResolution + " ${table.getDbName()} SET ${primaryKeyColumn.getDbName()}=${primaryKeyColumn.getDbName()} WHERE ${primaryKeyColumn.getDbName()}=?";
+        <#else>
+        return "UPDATE OR " + conflictResolution + " ${table.getDbName()} SET <#list insertColumns as column>${column.getDbName()}=?<#sep>,</#sep></#list> WHERE ${primaryKeyColumn.getDbName()}=?";
+        </#if>
+        <#else>
+        return null;
+        </#if>
+    }
+
+    @Override
+    public void bindPrimaryKeyTo(@NonNull SQLiteStatement statement, @NonNull Object model) {
+        <#if table.hasPrimaryKey()>
+        ${packagedTableName} ${table.getName()?lower_case} = (${packagedTableName})model;
+
+        ${getStatementBinder(table.getName()?lower_case, primaryKeyColumn, insertColumns?size + 1)}
+        </#if>
+    }
+
     public static @NonNull Uri getContentUri() {
         return Q.getResolver().getDatabaseProviderForModel(${packagedTableName}.class).getUri(${packagedTableName}.class, null);
     }
@@ -195,6 +329,14 @@ public class ${formatConstant(table.getName())} implements DbModelDescriptor {
         return Count.getBuilder(${packagedTableName}.class, Q.getResolver().getDatabaseProviderForModel(${packagedTableName}.class));
     }
 
+    public static @NonNull Exists.Builder<${packagedTableName}> exists() {
+        return Exists.getBuilder(${packagedTableName}.class, Q.getResolver().getDatabaseProviderForModel(${packagedTableName}.class));
+    }
+
+    public static @NonNull Aggregate.Builder<${packagedTableName}> aggregate() {
+        return Aggregate.getBuilder(${packagedTableName}.class, Q.getResolver().getDatabaseProviderForModel(${packagedTableName}.class));
+    }
+
     public static @NonNull Select.Builder<${packagedTableName}> select() {
         return Select.getBuilder(${packagedTableName}.class, Q.getResolver().getDatabaseProviderForModel(${packagedTableName}.class));
     }
@@ -4,9 +4,19 @@ import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import net.frju.androidquery.database.*;
+import net.frju.androidquery.operation.function.Transaction;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class Q {
 
@@ -20,26 +30,213 @@ public class Q {
     }
 
     public static @NonNull DefaultResolver getResolver() {
+        if (sResolver == null) {
+            throw new IllegalStateException("Q.init() must be called first, usually in Application.onCreate()");
+        }
         return sResolver;
     }
 
+    /**
+     * Start the creation of the providers not used yet
+     *
+     * @return a future done once all the providers are created and their databases opened
+     */
+    public static @NonNull Future<?> getReadyFuture() {
+        return getResolver().getReadyFuture();
+    }
+
+    /**
+     * Execute the callable inside one transaction of the given provider. Nested calls are mapped to SAVEPOINTs.
+     */
+    public static <T> T transaction(@NonNull Class<? extends DatabaseProvider> providerClass, @NonNull Callable<T> callable) throws Exception {
+        return Transaction.run(getResolver().getDatabaseProvider(providerClass), callable);
+    }
+
+    public static <T> rx.Single<T> transactionRx(@NonNull Class<? extends DatabaseProvider> providerClass, @NonNull Callable<T> callable) {
+        return Transaction.rx(getResolver().getDatabaseProvider(providerClass), callable);
+    }
+
+    public static <T> io.reactivex.Single<T> transactionRx2(@NonNull Class<? extends DatabaseProvider> providerClass, @NonNull Callable<T> callable) {
+        return Transaction.rx2(getResolver().getDatabaseProvider(providerClass), callable);
+    }
+
     public static class DefaultResolver implements Resolver {
 
-        private static HashMap<Class<?>, DatabaseProvider> mProviders = new HashMap<>();
+        /**
+         * The descriptor and provider class of each model class (and of its descriptor class, to be more error-tolerant)
+         */
+        private static final class ModelInfo {
+            final DbModelDescriptor mDescriptor;
+            final Class<? extends DatabaseProvider> mProviderClass;
+
+            ModelInfo(DbModelDescriptor descriptor, Class<? extends DatabaseProvider> providerClass) {
+                mDescriptor = descriptor;
+                mProviderClass = providerClass;
+            }
+        }
+
+        private static final ConcurrentHashMap<Class<?>, ModelInfo> mModels = new ConcurrentHashMap<>();
+        // the descriptors found for the other classes, by looking for a model assignable to them
+        private static final ConcurrentHashMap<Class<?>, DbModelDescriptor> mAssignableDescriptors = new ConcurrentHashMap<>();
+        // how to create each provider, filled once by init()
+        private static final ConcurrentHashMap<Class<? extends DatabaseProvider>, Callable<DatabaseProvider>> mProviderFactories = new ConcurrentHashMap<>();
+        // the creation of the providers used so far
+        private static final ConcurrentHashMap<Class<? extends DatabaseProvider>, ProviderTask> mProviderTasks = new ConcurrentHashMap<>();
+        // the idle threads stop after a while, so nothing is kept once all the providers are created
+        private static final ExecutorService mExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "AndroidQuery-init");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        /**
+         * The creation of one provider, which remembers its worker thread
+         */
+        private static final class ProviderTask extends FutureTask<DatabaseProvider> {
+            volatile Thread mThread;
 
+            ProviderTask(Callable<DatabaseProvider> creation) {
+                super(creation);
+            }
+
+            @Override
+            public void run() {
+                mThread = Thread.currentThread();
+                super.run();
+            }
+        }
+
+        /**
+         * Register the providers, which are only created on their first use. They are then created on a worker
+         * thread, since they open their database (and create or upgrade it), and the caller waits for that provider.
+         */
         public void init(@NonNull Context context) {
-            HashMap<String, DatabaseProvider> providersByName = new HashMap<>();
+            <#list tables as table>
+            ModelInfo ${table.getName()?uncap_first}Info = new ModelInfo(s${table.getName()}, <#if table.getDatabaseProvider().toString() != "java.lang.Void">${table.getDatabaseProvider().toString()}.class<#else>null</#if>);
+            mModels.put(${table.getPackage()}.${table.getName()}.class, ${table.getName()?uncap_first}Info);
+            mModels.put(${formatConstant(table.getName())}.class, ${table.getName()?uncap_first}Info);
+            </#list>
 
+            final Context appContext = context.getApplicationContext();
             <#list providers as provider>
-            providersByName.put("${provider.toString()}", new ${provider.toString()}(context.getApplicationContext()));
+            mProviderFactories.put(${provider.toString()}.class, new Callable<DatabaseProvider>() {
+                @Override
+                public DatabaseProvider call() {
+                    return new ${provider.toString()}(appContext);
+                }
+            });
             </#list>
+        }
 
-            <#list tables as table>
-            <#if table.getDatabaseProvider().toString() != "java.lang.Void">
-                    mProviders.put(${table.getPackage()}.${table.getName()}.class, providersByName.get("${table.getDatabaseProvider().toString()}"));
-                    mProviders.put(${formatConstant(table.getName())}.class, providersByName.get("${table.getDatabaseProvider().toString()}")); // to be more error-tolerant
-            </#if>
-            </#list>
+        /**
+         * @return the creation of that provider, started on a worker thread if not done yet, or null if that class has no models
+         */
+        private @Nullable ProviderTask startProvider(@NonNull Class<? extends DatabaseProvider> providerClass) {
+            if (mProviderFactories.isEmpty()) {
+                throw new IllegalStateException("Q.init() must be called before using the providers");
+            }
+
+            ProviderTask task = mProviderTasks.get(providerClass);
+            if (task == null) {
+                Callable<DatabaseProvider> factory = mProviderFactories.get(providerClass);
+                if (factory == null) {
+                    return null;
+                }
+
+                ProviderTask newTask = new ProviderTask(factory);
+                task = mProviderTasks.putIfAbsent(providerClass, newTask);
+                if (task == null) {
+                    task = newTask;
+                    mExecutor.execute(task);
+                }
+            }
+            return task;
+        }
+
+        /**
+         * Start the creation of all the providers not used yet, for instance to open their databases in advance
+         *
+         * @return a future done once all the providers are created and their databases opened
+         */
+        public @NonNull Future<?> getReadyFuture() {
+            if (mProviderFactories.isEmpty()) {
+                throw new IllegalStateException("Q.init() must be called before using the providers");
+            }
+
+            final ArrayList<Future<DatabaseProvider>> futures = new ArrayList<>();
+            for (Class<? extends DatabaseProvider> providerClass : mProviderFactories.keySet()) {
+                futures.add(startProvider(providerClass));
+            }
+
+            return new Future<Void>() {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    return false;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return false;
+                }
+
+                @Override
+                public boolean isDone() {
+                    for (Future<DatabaseProvider> future : futures) {
+                        if (!future.isDone()) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public Void get() throws InterruptedException, ExecutionException {
+                    for (Future<DatabaseProvider> future : futures) {
+                        future.get();
+                    }
+                    return null;
+                }
+
+                @Override
+                public Void get(long timeout, @NonNull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+                    long deadline = System.nanoTime() + unit.toNanos(timeout);
+                    for (Future<DatabaseProvider> future : futures) {
+                        future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    }
+                    return null;
+                }
+            };
+        }
+
+        /**
+         * @return the provider of that class once it is created, or null if that class has no models
+         */
+        private @Nullable DatabaseProvider getProvider(@NonNull Class<? extends DatabaseProvider> providerClass) {
+            ProviderTask task = startProvider(providerClass);
+            if (task == null) {
+                return null;
+            }
+
+            if (Thread.currentThread() == task.mThread && !task.isDone()) {
+                throw new IllegalStateException("The provider " + providerClass.getName() + " cannot be used while it is created, use onPostCreate() or onPostUpgrade() instead");
+            }
+
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the creation of " + providerClass.getName(), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
         }
 
         @Override
@@ -71,6 +268,20 @@ public class Q {
 
         @Override
         public @NonNull DbModelDescriptor getDbModelDescriptor(@NonNull Class<?> classDef) {
+            ModelInfo info = mModels.get(classDef);
+            if (info != null) {
+                return info.mDescriptor;
+            }
+
+            DbModelDescriptor descriptor = mAssignableDescriptors.get(classDef);
+            if (descriptor == null) {
+                descriptor = findAssignableDbModelDescriptor(classDef);
+                mAssignableDescriptors.put(classDef, descriptor);
+            }
+            return descriptor;
+        }
+
+        private @NonNull DbModelDescriptor findAssignableDbModelDescriptor(@NonNull Class<?> classDef) {
             <#assign isAssignableFrom>
                 <#list tables as table>
                 } else if (classDef.isAssignableFrom(${table.getPackage()}.${table.getName()}.class)) {
@@ -103,7 +314,20 @@ public class Q {
 
         @Override
         public @Nullable DatabaseProvider getDatabaseProviderForModel(@Nullable Class<?> model) {
-            return mProviders.get(model);
+            if (model == null) {
+                return null;
+            }
+
+            ModelInfo info = mModels.get(model);
+            return info != null && info.mProviderClass != null ? getProvider(info.mProviderClass) : null;
+        }
+
+        public @NonNull DatabaseProvider getDatabaseProvider(@NonNull Class<? extends DatabaseProvider> providerClass) {
+            DatabaseProvider provider = getProvider(providerClass);
+            if (provider == null) {
+                throw new IllegalStateException("The provider " + providerClass.getName() + " does not have any @DbModel models registered into that resolver");
+            }
+            return provider;
         }
     }
 
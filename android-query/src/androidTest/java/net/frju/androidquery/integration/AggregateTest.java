@@ -0,0 +1,111 @@
+package net.frju.androidquery.integration;
+
+import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.utils.SetupUser;
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.function.ColumnarResult;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AggregateTest extends IntegrationTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        getSetupUser().tearDownFourTestUsers();
+        getSetupUser().setupFourTestUsers();
+    }
+
+    @Test
+    public void testScalarAggregates() {
+        assertEquals(SetupUser.ANGIE_COUNT + SetupUser.JOSH_COUNT + SetupUser.GILL_COUNT + SetupUser.CLYDE_COUNT,
+                USER.aggregate().querySumLong(USER.COUNT));
+        assertEquals(SetupUser.ANGIE_RATING, USER.aggregate().queryMax(USER.RATING), 0.0001);
+        assertEquals(SetupUser.GILL_RATING, USER.aggregate().queryMin(USER.RATING), 0.0001);
+        assertEquals(2, USER.aggregate().queryCountDistinct(USER.COUNT));
+        assertEquals((SetupUser.GILL_RATING + SetupUser.CLYDE_RATING) / 2,
+                USER.aggregate()
+                        .where(Where.field(USER.IS_REGISTERED).isEqualTo(false))
+                        .queryAvg(USER.RATING),
+                0.0001);
+    }
+
+    @Test
+    public void testAggregatesWithoutRows() {
+        Where noUser = Where.field(USER.USERNAME).isEqualTo("nobody");
+
+        assertEquals(0, USER.aggregate().where(noUser).querySumLong(USER.COUNT));
+        assertTrue(Double.isNaN(USER.aggregate().where(noUser).queryAvg(USER.RATING)));
+    }
+
+    @Test
+    public void testGroupBy() {
+        ColumnarResult result = USER.aggregate()
+                .groupBy(USER.IS_REGISTERED)
+                .count("nb")
+                .sum(USER.COUNT, "total")
+                .orderByAsc(USER.IS_REGISTERED)
+                .query();
+
+        assertEquals(2, result.size());
+        assertEquals(0, result.getLongs(USER.IS_REGISTERED)[0]);
+        assertEquals(2, result.getLongs("nb")[0]);
+        assertEquals(SetupUser.GILL_COUNT + SetupUser.CLYDE_COUNT, result.getLongs("total")[0]);
+        assertEquals(1, result.getLongs(USER.IS_REGISTERED)[1]);
+        assertEquals(2, result.getLongs("nb")[1]);
+        assertEquals(SetupUser.ANGIE_COUNT + SetupUser.JOSH_COUNT, result.getLongs("total")[1]);
+    }
+
+    @Test
+    public void testGroupByKeepsNullAggregates() {
+        // no registered user has a count below 50, so their sum is NULL
+        ColumnarResult result = USER.aggregate()
+                .groupBy(USER.IS_REGISTERED)
+                .sum("CASE WHEN " + USER.COUNT + " < 50 THEN " + USER.COUNT + " END", "small")
+                .orderByAsc(USER.IS_REGISTERED)
+                .query();
+
+        assertEquals(2, result.size());
+        assertFalse(result.isNull("small", 0));
+        assertEquals((long) SetupUser.GILL_COUNT, result.getObjects("small")[0]);
+        assertTrue(result.isNull("small", 1));
+        assertNull(result.getObjects("small")[1]);
+    }
+
+    @Test
+    public void testGroupByWithHaving() {
+        ColumnarResult result = USER.aggregate()
+                .groupBy(USER.IS_REGISTERED)
+                .max(USER.RATING, "best")
+                .having(Where.field(USER.IS_REGISTERED).isEqualTo(true))
+                .query();
+
+        assertEquals(1, result.size());
+        assertEquals(SetupUser.ANGIE_RATING, result.getDoubles("best")[0], 0.0001);
+    }
+
+    @Test
+    public void testHavingOnAggregate() {
+        // the having value is bound as an integer and compared with the integer sum
+        ColumnarResult result = USER.aggregate()
+                .groupBy(USER.IS_REGISTERED)
+                .sum(USER.COUNT, "total")
+                .having(Where.field("total").isGreaterThan(SetupUser.GILL_COUNT + SetupUser.CLYDE_COUNT))
+                .query();
+
+        assertEquals(1, result.size());
+        assertEquals(1, result.getLongs(USER.IS_REGISTERED)[0]);
+        assertEquals(SetupUser.ANGIE_COUNT + SetupUser.JOSH_COUNT, result.getLongs("total")[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScalarAggregateRejectsGroupBy() {
+        USER.aggregate().groupBy(USER.IS_REGISTERED).querySum(USER.COUNT);
+    }
+}
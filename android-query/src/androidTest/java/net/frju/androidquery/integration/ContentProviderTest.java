@@ -0,0 +1,108 @@
+package net.frju.androidquery.integration;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+import android.test.mock.MockContentResolver;
+
+import net.frju.androidquery.database.BaseContentProvider;
+import net.frju.androidquery.database.BaseLocalDatabaseProvider;
+import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.models.LocalDatabaseProvider;
+import net.frju.androidquery.integration.models.User;
+import net.frju.androidquery.integration.utils.SetupUser;
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.function.Select;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ContentProviderTest extends IntegrationTest {
+
+    private LocalDatabaseProvider mCachedProvider;
+    private MockContentResolver mContentResolver;
+    private Uri mUsersUri;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        getSetupUser().tearDownFourTestUsers();
+        getSetupUser().setupFourTestUsers();
+
+        Context context = InstrumentationRegistry.getTargetContext();
+
+        // a second provider on the same database, with its caches enabled
+        mCachedProvider = new LocalDatabaseProvider(context) {
+            @Override
+            protected int getQueryCacheSize() {
+                return 100 * 1024;
+            }
+
+            @Override
+            protected int getEntityCacheSize() {
+                return 10;
+            }
+        };
+
+        BaseContentProvider contentProvider = new BaseContentProvider() {
+            @NonNull
+            @Override
+            protected BaseLocalDatabaseProvider getLocalSQLProvider() {
+                return mCachedProvider;
+            }
+        };
+        contentProvider.attachInfo(context, null);
+
+        mUsersUri = USER.getContentUri();
+        mContentResolver = new MockContentResolver();
+        mContentResolver.addProvider(mUsersUri.getAuthority(), contentProvider);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Select.Builder<User> selectUsers() {
+        return Select.getBuilder(User.class, mCachedProvider);
+    }
+
+    @Test
+    public void testContentProviderWritesInvalidateTheQueryCache() {
+        assertEquals(4, selectUsers().query().toArray().length);
+
+        mContentResolver.delete(mUsersUri, USER.ID + " = ?", new String[]{String.valueOf(SetupUser.CLYDE_ID)});
+        assertEquals(3, selectUsers().query().toArray().length);
+
+        ContentValues values = new ContentValues();
+        values.put(USER.USERNAME, "bob");
+        mContentResolver.insert(mUsersUri, values);
+        assertEquals(4, selectUsers().query().toArray().length);
+
+        values.put(USER.USERNAME, "robert");
+        mContentResolver.update(mUsersUri, values, USER.USERNAME + " = ?", new String[]{"bob"});
+        assertEquals(1, selectUsers()
+                .where(Where.field(USER.USERNAME).isEqualTo("robert"))
+                .query().toArray().length);
+    }
+
+    @Test
+    public void testContentProviderWritesInvalidateTheEntityCache() {
+        assertEquals(SetupUser.ANGIE_USER_NAME, selectAngie().username);
+
+        ContentValues values = new ContentValues();
+        values.put(USER.USERNAME, "angela");
+        mContentResolver.update(mUsersUri, values, USER.ID + " = ?", new String[]{String.valueOf(SetupUser.ANGIE_ID)});
+        assertEquals("angela", selectAngie().username);
+
+        mContentResolver.delete(mUsersUri, USER.ID + " = ?", new String[]{String.valueOf(SetupUser.ANGIE_ID)});
+        assertNull(selectAngie());
+    }
+
+    private User selectAngie() {
+        return selectUsers()
+                .where(Where.field(USER.ID).isEqualTo(SetupUser.ANGIE_ID))
+                .queryFirst();
+    }
+}
@@ -23,6 +23,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Samuel Kirton [sam@memtrip.com]
@@ -63,4 +65,15 @@ public class CountTest extends IntegrationTest {
         // exercise clause, therefore, we assert that 3 rows will be counted
         assertEquals(3, count);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testExists() {
+        assertTrue(USER.exists().query());
+        assertTrue(USER.exists()
+                .where(Where.field(USER.TIMESTAMP).isEqualTo(SetupUser.CLYDE_TIMESTAMP))
+                .query());
+        assertFalse(USER.exists()
+                .where(Where.field(USER.TIMESTAMP).isGreaterThan(SetupUser.ANGIE_TIMESTAMP))
+                .query());
+    }
+}
@@ -65,6 +65,23 @@ public class DeleteTest extends IntegrationTest {
         assertEquals(1, deletedRows);
     }
 
+    @Test
+    public void testLargeListOfUsersIsDeleted() {
+        Object[] usernames = new Object[1500];
+        for (int i = 0; i < usernames.length; i++) {
+            usernames[i] = "user" + i;
+        }
+        usernames[700] = SetupUser.ANGIE_USER_NAME;
+        usernames[1200] = SetupUser.CLYDE_USER_NAME;
+
+        int deletedRows = USER.delete()
+                .where(Where.field(USER.USERNAME).isIn(usernames))
+                .query();
+
+        assertEquals(2, deletedRows);
+        assertEquals(2, USER.select().query().toArray().length);
+    }
+
     @Test
     public void testUsersAreDeleted() {
         int deletedRows = USER.delete()
@@ -31,6 +31,8 @@ import org.junit.Test;
 
 import static net.frju.androidquery.operation.join.Join.innerJoin;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Samuel Kirton [sam@memtrip.com]
@@ -88,6 +90,30 @@ public class JoinTest extends IntegrationTest {
         assertEquals(SetupUser.ANGIE_LOG_ID, posts[0].user.log.id);
     }
 
+    @Test
+    public void testJoinWithIdentityMap() {
+        Post[] posts = POST.select()
+                .join(
+                        innerJoin(
+                                Post.class,
+                                POST.USER_ID,
+                                User.class,
+                                USER.ID
+                        )
+                )
+                .orderByAsc("Post.id")
+                .withIdentityMap()
+                .queryAndInit();
+
+        assertEquals(3, posts.length);
+        assertEquals(SetupPost.POST_1_USER_ID, posts[0].user.id);
+        assertSame(posts[0].user, posts[1].user);
+        assertNotSame(posts[0].user, posts[2].user);
+        // the logs are not joined, their placeholders must not be merged into one instance
+        assertNotSame(posts[0].user.log, posts[2].user.log);
+        assertNotSame(posts[0].data, posts[2].data);
+    }
+
     @Test
     public void testJoinWithOrderBy() {
         Post[] posts = POST.select()
@@ -15,13 +15,17 @@
  */
 package net.frju.androidquery.integration;
 
+import net.frju.androidquery.gen.POST;
 import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.models.Post;
 import net.frju.androidquery.integration.models.User;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Samuel Kirton [sam@memtrip.com]
@@ -49,4 +53,35 @@ public class ModelInitTest extends IntegrationTest {
         assertEquals(4, users.length);
         assertEquals(users[0].posts.length, 2);
     }
+
+    @Test
+    public void testRelationsAreLoaded() {
+        User[] users = USER.select().orderByAsc(USER.ID).queryAndInit();
+
+        assertEquals(4, users.length);
+        assertEquals(2, users[0].relatedPosts.size());
+        assertEquals(users[0].id, users[0].relatedPosts.get(0).userId);
+        assertEquals(0, users[1].relatedPosts.size());
+        assertEquals(1, users[3].relatedPosts.size());
+
+        Post[] posts = POST.select().queryAndInit();
+
+        assertEquals(3, posts.length);
+        for (Post post : posts) {
+            assertEquals(post.userId, post.author.id);
+        }
+    }
+
+    @Test
+    public void testLazyRelationsAreLoadedOnAccess() {
+        Post[] posts = POST.select().orderByAsc(POST.ID).query().toArray();
+
+        assertEquals(3, posts.length);
+        assertFalse(posts[0].lazyAuthor.isLoaded());
+        assertEquals(posts[0].userId, posts[0].lazyAuthor.get().id);
+        assertTrue(posts[0].lazyAuthor.isLoaded());
+
+        User user = posts[0].lazyAuthor.get();
+        assertEquals(2, user.lazyPosts.get().size());
+    }
 }
@@ -0,0 +1,163 @@
+package net.frju.androidquery.integration;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.support.test.InstrumentationRegistry;
+import android.test.mock.MockContentResolver;
+
+import net.frju.androidquery.database.NotificationDispatcher;
+import net.frju.androidquery.gen.Q;
+import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.models.LocalDatabaseProvider;
+import net.frju.androidquery.integration.utils.SetupUser;
+import net.frju.androidquery.operation.condition.Where;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationTest extends IntegrationTest {
+
+    private static final Uri TABLE_URI = Uri.parse("content://test/table");
+    private static final Uri ROW_URI = Uri.parse("content://test/table/1");
+    private static final Uri OTHER_TABLE_URI = Uri.parse("content://test/other");
+
+    private ContentResolver mContentResolver;
+    private RecordingObserver mObserver;
+    private Uri mMarkerUri;
+
+    /**
+     * The observers are notified asynchronously, but in the order of the notifications
+     */
+    private static class RecordingObserver extends ContentObserver {
+        final LinkedBlockingQueue<Uri> uris = new LinkedBlockingQueue<>();
+
+        RecordingObserver() {
+            super(null);
+        }
+
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            uris.add(uri);
+        }
+
+        Uri next() throws InterruptedException {
+            Uri uri = uris.poll(5, TimeUnit.SECONDS);
+            assertNotNull(uri);
+            return uri;
+        }
+    }
+
+    private static class RecordingContentResolver extends MockContentResolver {
+        final List<Uri> uris = new ArrayList<>();
+
+        @Override
+        public void notifyChange(Uri uri, ContentObserver observer) {
+            uris.add(uri);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        getSetupUser().tearDownFourTestUsers();
+        getSetupUser().setupFourTestUsers();
+
+        Uri authorityUri = USER.getContentUri().buildUpon().path(null).build();
+        mMarkerUri = authorityUri.buildUpon().appendPath("marker").build();
+        mContentResolver = InstrumentationRegistry.getTargetContext().getContentResolver();
+        mObserver = new RecordingObserver();
+        mContentResolver.registerContentObserver(authorityUri, true, mObserver);
+    }
+
+    @After
+    public void tearDown() {
+        mContentResolver.unregisterContentObserver(mObserver);
+    }
+
+    @Test
+    public void testUrisAreDeduplicated() {
+        RecordingContentResolver contentResolver = new RecordingContentResolver();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(contentResolver, InstrumentationRegistry.getTargetContext().getMainLooper());
+
+        dispatcher.notifyChange(Arrays.asList(OTHER_TABLE_URI, ROW_URI, OTHER_TABLE_URI, ROW_URI));
+
+        assertEquals(Arrays.asList(OTHER_TABLE_URI, ROW_URI), contentResolver.uris);
+    }
+
+    @Test
+    public void testRowUrisAreDroppedWithTheirTable() {
+        RecordingContentResolver contentResolver = new RecordingContentResolver();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(contentResolver, InstrumentationRegistry.getTargetContext().getMainLooper());
+
+        dispatcher.notifyChange(Arrays.asList(ROW_URI, OTHER_TABLE_URI, TABLE_URI));
+
+        assertEquals(Arrays.asList(OTHER_TABLE_URI, TABLE_URI), contentResolver.uris);
+    }
+
+    @Test
+    public void testNotificationsAreCoalescedUntilFlushed() {
+        RecordingContentResolver contentResolver = new RecordingContentResolver();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(contentResolver, InstrumentationRegistry.getTargetContext().getMainLooper());
+        dispatcher.setCoalescingWindow(60000);
+
+        dispatcher.notifyChange(ROW_URI);
+        dispatcher.notifyChange(Arrays.asList(TABLE_URI, OTHER_TABLE_URI));
+        assertTrue(contentResolver.uris.isEmpty());
+
+        dispatcher.flush();
+        assertEquals(Arrays.asList(TABLE_URI, OTHER_TABLE_URI), contentResolver.uris);
+    }
+
+    @Test
+    public void testNotificationsWaitForTheOutermostCommit() throws Exception {
+        Q.transaction(LocalDatabaseProvider.class, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                Q.transaction(LocalDatabaseProvider.class, new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        USER.delete().where(Where.field(USER.USERNAME).isEqualTo(SetupUser.ANGIE_USER_NAME)).query();
+                        return null;
+                    }
+                });
+
+                // sent after the delete, but received first since the delete is not committed yet
+                mContentResolver.notifyChange(mMarkerUri, null);
+                assertEquals(mMarkerUri, mObserver.next());
+                return null;
+            }
+        });
+
+        assertEquals(USER.getContentUri(), mObserver.next());
+    }
+
+    @Test
+    public void testChangeNotificationCanBeDisabled() throws Exception {
+        USER.delete()
+                .where(Where.field(USER.USERNAME).isEqualTo(SetupUser.ANGIE_USER_NAME))
+                .withChangeNotification(false)
+                .query();
+        mContentResolver.notifyChange(mMarkerUri, null);
+
+        assertEquals(mMarkerUri, mObserver.next());
+
+        USER.delete()
+                .where(Where.field(USER.USERNAME).isEqualTo(SetupUser.JOSH_USER_NAME))
+                .query();
+
+        assertEquals(USER.getContentUri(), mObserver.next());
+    }
+}
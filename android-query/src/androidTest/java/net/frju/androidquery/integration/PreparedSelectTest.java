@@ -0,0 +1,122 @@
+package net.frju.androidquery.integration;
+
+import net.frju.androidquery.gen.POST;
+import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.models.User;
+import net.frju.androidquery.integration.utils.SetupPost;
+import net.frju.androidquery.integration.utils.SetupUser;
+import net.frju.androidquery.operation.condition.Param;
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.function.PreparedSelect;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PreparedSelectTest extends IntegrationTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+
+        getSetupUser().tearDownFourTestUsers();
+        getSetupUser().setupFourTestUsers();
+
+        getSetupPost().tearDownTestPosts();
+        getSetupPost().setupTestPosts();
+    }
+
+    @Test
+    public void testPreparedSelectIsReused() {
+        PreparedSelect<User> select = USER.select()
+                .where(Where.field(USER.ID).isEqualTo(Param.of("id")))
+                .prepare();
+
+        assertEquals(SetupUser.ANGIE_USER_NAME, select.queryFirst("id", SetupUser.ANGIE_ID).username);
+        assertEquals(SetupUser.CLYDE_USER_NAME, select.queryFirst("id", SetupUser.CLYDE_ID).username);
+        assertNull(select.queryFirst("id", 42));
+    }
+
+    @Test
+    public void testPreparedSelectWithSeveralParams() {
+        PreparedSelect<User> select = USER.select()
+                .where(Where.field(USER.IS_REGISTERED).isEqualTo(Param.of("registered")),
+                        Where.field(USER.COUNT).isGreaterThanOrEqualTo(Param.of("count")),
+                        Where.field(USER.USERNAME).isNotEqualTo("nobody"))
+                .orderByAsc(USER.ID)
+                .prepare();
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("registered", false);
+        params.put("count", SetupUser.CLYDE_COUNT);
+        User[] users = select.query(params).toArray();
+
+        assertEquals(1, users.length);
+        assertEquals(SetupUser.CLYDE_ID, users[0].id);
+
+        params.put("count", 0);
+        assertEquals(2, select.query(params).toArray().length);
+    }
+
+    @Test
+    public void testParamInSubQuery() {
+        PreparedSelect<User> select = USER.select()
+                .where(Where.field(USER.ID).isIn(POST.select()
+                        .fields(POST.USER_ID)
+                        .where(Where.field(POST.ID).isEqualTo(Param.of("postId")))))
+                .prepare();
+
+        assertEquals(SetupUser.CLYDE_ID, select.queryFirst("postId", SetupPost.POST_3_ID).id);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingParam() {
+        USER.select()
+                .where(Where.field(USER.ID).isEqualTo(Param.of("id")))
+                .prepare()
+                .query();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyInValuesInPreparedSelect() {
+        USER.select()
+                .where(Where.field(USER.ID).isIn(getIds(1000)))
+                .prepare();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyInValuesInSubQuery() {
+        USER.select()
+                .where(Where.field(USER.ID).isIn(POST.select()
+                        .fields(POST.USER_ID)
+                        .where(Where.field(POST.ID).isIn(getIds(1000)))))
+                .query();
+    }
+
+    @Test
+    public void testManyInValuesInOuterQuery() {
+        assertEquals(4, USER.select()
+                .where(Where.field(USER.ID).isIn(getIds(1000)))
+                .query().toArray().length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParamOutsideOfPreparedSelect() {
+        USER.select()
+                .where(Where.field(USER.ID).isEqualTo(Param.of("id")))
+                .query();
+    }
+
+    private static Object[] getIds(int count) {
+        Object[] ids = new Object[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+        }
+        return ids;
+    }
+}
@@ -15,10 +15,19 @@
  */
 package net.frju.androidquery.integration;
 
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import net.frju.androidquery.gen.DATA;
 import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.models.Data;
 import net.frju.androidquery.integration.models.User;
+import net.frju.androidquery.integration.utils.SetupData;
 import net.frju.androidquery.integration.utils.SetupUser;
 import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.function.ColumnarResult;
+import net.frju.androidquery.operation.function.CursorResult;
+import net.frju.androidquery.operation.function.Page;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
 import org.junit.Before;
@@ -151,6 +160,29 @@ public class ReadTest extends IntegrationTest {
         assertEquals(1, users.length);
     }
 
+    @Test
+    public void testStartsWithSelection() {
+        User[] users = USER.select()
+                .where(Where.field(USER.USERNAME).startsWith("jo"))
+                .query().toArray();
+
+        assertEquals(1, users.length);
+        assertEquals(SetupUser.JOSH_ID, users[0].id);
+
+        // case sensitive, unlike LIKE
+        assertEquals(0, USER.count().where(Where.field(USER.USERNAME).startsWith("JO")).query());
+    }
+
+    @Test
+    public void testStartsWithIgnoreCaseSelection() {
+        User[] users = USER.select()
+                .where(Where.field(USER.USERNAME).startsWithIgnoreCase("Jo"))
+                .query().toArray();
+
+        assertEquals(1, users.length);
+        assertEquals(SetupUser.JOSH_ID, users[0].id);
+    }
+
     @Test
     public void testLikeEndingWithSelection() {
         User[] users = USER.select()
@@ -206,6 +238,70 @@ public class ReadTest extends IntegrationTest {
         assertEquals(3, users.length);
     }
 
+    @Test
+    public void testInLargeListSelection() {
+        // more values than the SQLite bind variable limit
+        Object[] ids = new Object[2000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 2;
+        }
+
+        User[] users = USER.select()
+                .where(Where.field(USER.ID).isIn(ids), Where.field(USER.USERNAME).isNotEqualTo(SetupUser.GILL_USER_NAME))
+                .query().toArray();
+
+        // josh and clyde
+        assertEquals(2, users.length);
+        // angie
+        assertEquals(1, USER.count().where(Where.field(USER.ID).isNotIn(ids)).query());
+    }
+
+    @Test
+    public void testInLargeListValuesAreKeptUntilTheCursorIsClosed() {
+        Object[] ids = new Object[2000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 2;
+        }
+
+        CursorResult<User> result = USER.select()
+                .where(Where.field(USER.ID).isIn(ids))
+                .query();
+
+        // the rows are read lazily, after the values were put in the temporary table
+        assertEquals(2000, countInValues());
+        assertEquals(3, result.toArray().length);
+
+        result.close();
+        assertEquals(0, countInValues());
+    }
+
+    @Test
+    public void testSameInLargeListRunTwiceAtOnce() {
+        Object[] ids = new Object[2000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 2;
+        }
+        Where in = Where.field(USER.ID).isIn(ids);
+
+        CursorResult<User> first = USER.select().where(in).query();
+        CursorResult<User> second = USER.select().where(in).query();
+
+        // each execution has its own values, closing the first one does not remove the values of the second one
+        first.close();
+        assertEquals(3, second.toArray().length);
+        second.close();
+        assertEquals(0, countInValues());
+    }
+
+    private static int countInValues() {
+        Cursor cursor = USER.raw("SELECT count(*) FROM temp.androidquery_in").query();
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
     @Test
     public void testOrWhereInQueryIsBuiltFromClause() {
         User[] users = USER.select()
@@ -373,4 +469,173 @@ public class ReadTest extends IntegrationTest {
         assertEquals(SetupUser.CLYDE_USER_NAME, users[0].username);
         assertEquals(SetupUser.ANGIE_USER_NAME, users[1].username);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testStreamSelection() {
+        int count = 0;
+        long lastId = 0;
+        // a chunk size smaller than the result to read several chunks
+        for (User user : USER.select().stream(3)) {
+            assertEquals(true, user.id > lastId);
+            lastId = user.id;
+            count++;
+        }
+
+        assertEquals(4, count);
+    }
+
+    @Test
+    public void testStreamWhereSelection() {
+        int count = 0;
+        for (User user : USER.select()
+                .where(Where.field(USER.TIMESTAMP).isGreaterThan(SetupUser.CLYDE_TIMESTAMP))
+                .stream(1)) {
+            assertEquals(true, user.timestamp > SetupUser.CLYDE_TIMESTAMP);
+            count++;
+        }
+
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void testFieldsSelection() {
+        User user = USER.select()
+                .fields(USER.ID, USER.USERNAME)
+                .where(Where.field(USER.USERNAME).isEqualTo(SetupUser.CLYDE_USER_NAME))
+                .queryFirst();
+
+        assertEquals(SetupUser.CLYDE_ID, user.id);
+        assertEquals(SetupUser.CLYDE_USER_NAME, user.username);
+        // not fetched
+        assertEquals(0, user.timestamp);
+        assertEquals(null, user.profilePicture);
+    }
+
+    @Test
+    public void testPluckSelection() {
+        long[] ids = USER.select()
+                .orderByAsc(USER.ID)
+                .pluckLongs(USER.ID);
+
+        assertEquals(4, ids.length);
+        assertEquals(SetupUser.ANGIE_ID, ids[0]);
+        assertEquals(SetupUser.CLYDE_ID, ids[3]);
+    }
+
+    @Test
+    public void testPluckColumnsSelection() {
+        ColumnarResult result = USER.select()
+                .where(Where.field(USER.USERNAME).isEqualTo(SetupUser.GILL_USER_NAME))
+                .pluckColumns(USER.COUNT, USER.RATING, USER.USERNAME);
+
+        assertEquals(1, result.size());
+        assertEquals(SetupUser.GILL_COUNT, result.getInts(USER.COUNT)[0]);
+        assertEquals(SetupUser.GILL_RATING, result.getDoubles(USER.RATING)[0], 0);
+        assertEquals(SetupUser.GILL_USER_NAME, result.getObjects(USER.USERNAME)[0]);
+    }
+
+    @Test
+    public void testKeysetPagination() {
+        Page<User> page = USER.select()
+                .orderByDesc(USER.COUNT)
+                .queryPage(3);
+
+        // angie, clyde and josh have the same count, the primary key breaks the tie
+        assertEquals(3, page.getItems().size());
+        assertEquals(SetupUser.ANGIE_USER_NAME, page.getItems().get(0).username);
+        assertEquals(SetupUser.JOSH_USER_NAME, page.getItems().get(1).username);
+        assertEquals(SetupUser.CLYDE_USER_NAME, page.getItems().get(2).username);
+        assertEquals(true, page.hasNext());
+
+        page = USER.select()
+                .orderByDesc(USER.COUNT)
+                .queryPageAfter(page.getNextKey(), 3);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(SetupUser.GILL_USER_NAME, page.getItems().get(0).username);
+        assertEquals(false, page.hasNext());
+    }
+
+    @Test
+    public void testKeysetPaginationAfterAutoIncrementedModel() {
+        DATA.delete().query();
+        Data[] data = {
+                SetupData.createData("a"),
+                SetupData.createData("a"),
+                SetupData.createData("a"),
+                SetupData.createData("b")
+        };
+        DATA.insert(data).query();
+
+        Page<Data> page = DATA.select()
+                .orderByAsc(DATA.NAME)
+                .queryPage(2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(data[0].id, page.getItems().get(0).id);
+        assertEquals(data[1].id, page.getItems().get(1).id);
+
+        // the auto-incremented primary key breaks the tie between the "a" names
+        page = DATA.select()
+                .orderByAsc(DATA.NAME)
+                .queryPageAfterModel(page.getItems().get(1), 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(data[2].id, page.getItems().get(0).id);
+        assertEquals(data[3].id, page.getItems().get(1).id);
+
+        page = DATA.select()
+                .orderByAsc(DATA.NAME)
+                .queryPageAfterModel(page.getItems().get(1), 2);
+
+        assertEquals(0, page.getItems().size());
+        assertEquals(false, page.hasNext());
+
+        DATA.delete().query();
+    }
+
+    @Test
+    public void testKeysetPaginationOnNullKeys() {
+        ContentValues values = new ContentValues();
+        values.putNull(USER.USERNAME);
+        USER.update().values(values).where(Where.field(USER.ID).isEqualTo(SetupUser.GILL_ID)).query();
+
+        // the NULL usernames come first in ASC order
+        Page<User> page = USER.select()
+                .orderByAsc(USER.USERNAME)
+                .queryPage(1);
+
+        assertEquals(SetupUser.GILL_ID, page.getItems().get(0).id);
+
+        page = USER.select()
+                .orderByAsc(USER.USERNAME)
+                .queryPageAfter(page.getNextKey(), 3);
+
+        assertEquals(3, page.getItems().size());
+        assertEquals(SetupUser.ANGIE_USER_NAME, page.getItems().get(0).username);
+        assertEquals(SetupUser.CLYDE_USER_NAME, page.getItems().get(1).username);
+        assertEquals(SetupUser.JOSH_USER_NAME, page.getItems().get(2).username);
+        assertEquals(false, page.hasNext());
+
+        // and last in DESC order
+        page = USER.select()
+                .orderByDesc(USER.USERNAME)
+                .queryPage(3);
+
+        assertEquals(SetupUser.ANGIE_USER_NAME, page.getItems().get(2).username);
+
+        page = USER.select()
+                .orderByDesc(USER.USERNAME)
+                .queryPageAfter(page.getNextKey(), 3);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(SetupUser.GILL_ID, page.getItems().get(0).id);
+        assertEquals(false, page.hasNext());
+
+        page = USER.select()
+                .orderByDesc(USER.USERNAME)
+                .queryPageAfter(new Object[]{null, SetupUser.GILL_ID}, 3);
+
+        assertEquals(0, page.getItems().size());
+    }
+}
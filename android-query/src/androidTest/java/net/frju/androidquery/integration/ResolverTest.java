@@ -0,0 +1,50 @@
+package net.frju.androidquery.integration;
+
+import net.frju.androidquery.database.Resolver;
+import net.frju.androidquery.gen.Q;
+import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.models.LocalDatabaseProvider;
+import net.frju.androidquery.integration.models.Post;
+import net.frju.androidquery.integration.models.User;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResolverTest extends IntegrationTest {
+
+    @Test
+    public void testDescriptorLookup() {
+        Resolver resolver = Q.getResolver();
+
+        assertEquals("users", resolver.getDbModelDescriptor(User.class).getTableDbName());
+        assertEquals("Post", resolver.getDbModelDescriptor(Post.class).getTableDbName());
+        assertSame(resolver.getDbModelDescriptor(User.class), resolver.getDbModelDescriptor(USER.class));
+        // the first model assignable to the class, like before
+        assertSame(resolver.getDbModelDescriptor(User.class), resolver.getDbModelDescriptor(Object.class));
+    }
+
+    @Test
+    public void testProviderLookup() {
+        Resolver resolver = Q.getResolver();
+
+        assertSame(Q.getResolver().getDatabaseProvider(LocalDatabaseProvider.class), resolver.getDatabaseProviderForModel(User.class));
+        assertSame(resolver.getDatabaseProviderForModel(User.class), resolver.getDatabaseProviderForModel(USER.class));
+        assertNull(resolver.getDatabaseProviderForModel(Object.class));
+        assertNull(resolver.getDatabaseProviderForModel(null));
+    }
+
+    @Test
+    public void testProvidersAreReadyAfterFirstUse() throws Exception {
+        USER.count().query();
+
+        // the only provider of the test models
+        assertTrue(Q.getReadyFuture().isDone());
+        Q.getReadyFuture().get(5, TimeUnit.SECONDS);
+    }
+}
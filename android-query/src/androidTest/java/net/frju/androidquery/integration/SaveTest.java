@@ -0,0 +1,86 @@
+package net.frju.androidquery.integration;
+
+import net.frju.androidquery.gen.DATA;
+import net.frju.androidquery.integration.models.Data;
+import net.frju.androidquery.integration.utils.SetupData;
+import net.frju.androidquery.operation.condition.Where;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SaveTest extends IntegrationTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+
+        getSetupData().tearDownTestData();
+        getSetupData().setupTestData();
+    }
+
+    @Test
+    public void testSaveUpdatesExistingModel() {
+        Data data = DATA.select().where(Where.field(DATA.NAME).isEqualTo("data1")).queryFirst();
+        data.name = "changed";
+
+        assertEquals(1, DATA.save(data).query());
+
+        assertEquals(3, DATA.count().query());
+        assertEquals("changed", DATA.select().where(Where.field(DATA.ID).isEqualTo(data.id)).queryFirst().name);
+        assertEquals(1, data.preUpdateCount);
+        assertEquals(0, data.preInsertCount);
+    }
+
+    @Test
+    public void testSaveInsertsNewModel() {
+        Data data = SetupData.createData("data4");
+
+        assertEquals(1, DATA.save(data).query());
+
+        assertTrue(data.id > 0);
+        assertEquals(4, DATA.count().query());
+        assertEquals("data4", DATA.select().where(Where.field(DATA.ID).isEqualTo(data.id)).queryFirst().name);
+        assertEquals(0, data.preUpdateCount);
+        assertEquals(1, data.preInsertCount);
+    }
+
+    @Test
+    public void testSaveKeepsTheIdOfAMissingModel() {
+        Data data = SetupData.createData("data4");
+        data.id = 1000;
+
+        assertEquals(1, DATA.save(data).query());
+
+        assertEquals(1000, data.id);
+        assertEquals("data4", DATA.select().where(Where.field(DATA.ID).isEqualTo(1000)).queryFirst().name);
+        // it is inserted, even if its id is already set
+        assertEquals(0, data.preUpdateCount);
+        assertEquals(1, data.preInsertCount);
+    }
+
+    @Test
+    public void testSaveMixedBatch() {
+        Data existing = DATA.select().where(Where.field(DATA.NAME).isEqualTo("data2")).queryFirst();
+        existing.name = "changed";
+        Data created = SetupData.createData("data4");
+        Data withId = SetupData.createData("data5");
+        withId.id = 1000;
+
+        assertEquals(3, DATA.save(existing, created, withId).query());
+
+        assertEquals(5, DATA.count().query());
+        assertEquals("changed", DATA.select().where(Where.field(DATA.ID).isEqualTo(existing.id)).queryFirst().name);
+        assertEquals("data4", DATA.select().where(Where.field(DATA.ID).isEqualTo(created.id)).queryFirst().name);
+        assertEquals("data5", DATA.select().where(Where.field(DATA.ID).isEqualTo(1000)).queryFirst().name);
+
+        assertEquals(1, existing.preUpdateCount);
+        assertEquals(0, existing.preInsertCount);
+        assertEquals(0, created.preUpdateCount);
+        assertEquals(1, created.preInsertCount);
+        assertEquals(0, withId.preUpdateCount);
+        assertEquals(1, withId.preInsertCount);
+    }
+}
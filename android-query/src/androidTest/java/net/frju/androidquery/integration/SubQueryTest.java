@@ -0,0 +1,75 @@
+package net.frju.androidquery.integration;
+
+import net.frju.androidquery.gen.POST;
+import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.models.User;
+import net.frju.androidquery.integration.utils.SetupPost;
+import net.frju.androidquery.integration.utils.SetupUser;
+import net.frju.androidquery.operation.condition.Where;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubQueryTest extends IntegrationTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+
+        getSetupUser().tearDownFourTestUsers();
+        getSetupUser().setupFourTestUsers();
+
+        getSetupPost().tearDownTestPosts();
+        getSetupPost().setupTestPosts();
+    }
+
+    @Test
+    public void testInSubQuery() {
+        User[] users = USER.select()
+                .where(Where.field(USER.ID).isIn(POST.select().fields(POST.USER_ID)))
+                .orderByAsc(USER.ID)
+                .query().toArray();
+
+        assertEquals(2, users.length);
+        assertEquals(SetupUser.ANGIE_ID, users[0].id);
+        assertEquals(SetupUser.CLYDE_ID, users[1].id);
+    }
+
+    @Test
+    public void testNotInSubQueryWithArgs() {
+        long count = USER.count()
+                .where(Where.field(USER.ID).isNotIn(POST.select()
+                        .fields(POST.USER_ID)
+                        .where(Where.field(POST.TITLE).isEqualTo(SetupPost.POST_3_TITLE))))
+                .query();
+
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void testCorrelatedExistsSubQuery() {
+        // the args of the outer query, before and after the sub-query, must stay in order
+        User[] users = USER.select()
+                .where(Where.field(USER.USERNAME).isNotEqualTo("nobody"),
+                        Where.exists(POST.select().where(
+                                Where.field("Post." + POST.USER_ID).isEqualTo(Where.field("users." + USER.ID)),
+                                Where.field(POST.TITLE).isEqualTo(SetupPost.POST_3_TITLE))),
+                        Where.field(USER.TIMESTAMP).isGreaterThan(0))
+                .query().toArray();
+
+        assertEquals(1, users.length);
+        assertEquals(SetupUser.CLYDE_ID, users[0].id);
+    }
+
+    @Test
+    public void testNotExistsSubQuery() {
+        long count = USER.count()
+                .where(Where.notExists(POST.select().where(
+                        Where.field("Post." + POST.USER_ID).isEqualTo(Where.field("users." + USER.ID)))))
+                .query();
+
+        assertEquals(2, count);
+    }
+}
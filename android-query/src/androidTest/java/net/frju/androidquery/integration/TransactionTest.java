@@ -0,0 +1,83 @@
+package net.frju.androidquery.integration;
+
+import net.frju.androidquery.gen.Q;
+import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.integration.models.LocalDatabaseProvider;
+import net.frju.androidquery.integration.utils.SetupUser;
+import net.frju.androidquery.operation.condition.Where;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TransactionTest extends IntegrationTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        getSetupUser().tearDownFourTestUsers();
+        getSetupUser().setupFourTestUsers();
+    }
+
+    @Test
+    public void testTransactionIsCommitted() throws Exception {
+        int deleted = Q.transaction(LocalDatabaseProvider.class, new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return USER.delete().where(Where.field(USER.USERNAME).isEqualTo(SetupUser.ANGIE_USER_NAME)).query()
+                        + USER.delete().where(Where.field(USER.USERNAME).isEqualTo(SetupUser.JOSH_USER_NAME)).query();
+            }
+        });
+
+        assertEquals(2, deleted);
+        assertEquals(2, USER.count().query());
+    }
+
+    @Test
+    public void testTransactionIsRolledBack() throws Exception {
+        try {
+            Q.transaction(LocalDatabaseProvider.class, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    USER.delete().query();
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertEquals(4, USER.count().query());
+    }
+
+    @Test
+    public void testNestedTransactionIsRolledBackToSavepoint() throws Exception {
+        Q.transaction(LocalDatabaseProvider.class, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                USER.delete().where(Where.field(USER.USERNAME).isEqualTo(SetupUser.ANGIE_USER_NAME)).query();
+
+                try {
+                    Q.transaction(LocalDatabaseProvider.class, new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            USER.delete().query();
+                            throw new IllegalStateException();
+                        }
+                    });
+                } catch (IllegalStateException e) {
+                    // only the nested transaction is rolled back
+                }
+
+                return null;
+            }
+        });
+
+        assertEquals(3, USER.count().query());
+    }
+}
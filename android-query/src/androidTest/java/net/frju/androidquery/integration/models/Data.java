@@ -2,11 +2,29 @@ package net.frju.androidquery.integration.models;
 
 import net.frju.androidquery.annotation.DbField;
 import net.frju.androidquery.annotation.DbModel;
+import net.frju.androidquery.database.ModelListener;
 
 @DbModel(databaseProvider = LocalDatabaseProvider.class)
-public class Data {
+public class Data implements ModelListener {
     @DbField(primaryKey = true, autoIncrement = true)
     public long id;
     @DbField
     public String name;
+
+    public int preInsertCount;
+    public int preUpdateCount;
+
+    @Override
+    public void onPreInsert() {
+        preInsertCount++;
+    }
+
+    @Override
+    public void onPreUpdate() {
+        preUpdateCount++;
+    }
+
+    @Override
+    public void onPreDelete() {
+    }
 }
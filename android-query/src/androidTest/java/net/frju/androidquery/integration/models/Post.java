@@ -3,6 +3,8 @@ package net.frju.androidquery.integration.models;
 import net.frju.androidquery.annotation.DbField;
 import net.frju.androidquery.annotation.DbModel;
 import net.frju.androidquery.annotation.ForeignKey;
+import net.frju.androidquery.annotation.Relation;
+import net.frju.androidquery.database.Lazy;
 
 @DbModel(
         foreignKeys = {
@@ -29,4 +31,8 @@ public class Post {
     public User user;
     @DbField
     public Data data;
+    @Relation(localColumn = "userId", foreignColumn = "_id")
+    public User author;
+    @Relation(localColumn = "userId", foreignColumn = "_id")
+    public Lazy<User> lazyAuthor;
 }
\ No newline at end of file
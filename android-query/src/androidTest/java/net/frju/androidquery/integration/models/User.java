@@ -4,9 +4,13 @@ import net.frju.androidquery.annotation.DbField;
 import net.frju.androidquery.annotation.DbModel;
 import net.frju.androidquery.annotation.ForeignKey;
 import net.frju.androidquery.annotation.InitMethod;
+import net.frju.androidquery.annotation.Relation;
+import net.frju.androidquery.database.Lazy;
 import net.frju.androidquery.gen.POST;
 import net.frju.androidquery.operation.condition.Where;
 
+import java.util.List;
+
 @DbModel(
         foreignKeys = {
                 @ForeignKey(
@@ -42,6 +46,12 @@ public class User {
 
     public Post[] posts;
 
+    @Relation(foreignColumn = "userId")
+    public List<Post> relatedPosts;
+
+    @Relation(foreignColumn = "userId")
+    public Lazy<List<Post>> lazyPosts;
+
     @InitMethod
     public void initPosts() {
         posts = POST.select().where(Where.field(POST.USER_ID).isEqualTo(id)).queryAndInit();
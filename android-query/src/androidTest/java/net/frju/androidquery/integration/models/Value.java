@@ -0,0 +1,17 @@
+package net.frju.androidquery.integration.models;
+
+import net.frju.androidquery.annotation.DbField;
+import net.frju.androidquery.annotation.DbModel;
+
+/**
+ * Its generated variable is named like the ones of the statement binder
+ */
+@DbModel(databaseProvider = LocalDatabaseProvider.class)
+public class Value {
+    @DbField(primaryKey = true, autoIncrement = true)
+    public long id;
+    @DbField
+    public String value;
+    @DbField
+    public Long count;
+}
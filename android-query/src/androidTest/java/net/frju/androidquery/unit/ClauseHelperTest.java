@@ -25,6 +25,7 @@ import net.frju.androidquery.unit.mock.ClauseHelperStub;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Samuel Kirton [sam@memtrip.com]
@@ -111,6 +112,75 @@ public class ClauseHelperTest {
         assertEquals("20", args[2]);
     }
 
+    @Test
+    public void testBindArgsKeepTheirType() {
+        ClauseHelper clauseHelper = new ClauseHelperStub();
+
+        Where where = Where.field(USER.USERNAME).isEqualTo("sam")
+                .and(Where.field(USER.IS_REGISTERED).isEqualTo(true))
+                .and(Where.field(USER.TIMESTAMP).isIn(10, 20L))
+                .and(Where.field(USER.RATING).isGreaterThan(1.5f));
+
+        Object[] args = clauseHelper.getConditionBindArgs(new Where[]{where});
+
+        assertEquals(5, args.length);
+        assertEquals("sam", args[0]);
+        assertEquals(1L, args[1]);
+        assertEquals(10L, args[2]);
+        assertEquals(20L, args[3]);
+        assertEquals(1.5d, args[4]);
+    }
+
+    @Test
+    public void testSqlIsReusedForTheSameShape() {
+        ClauseHelper clauseHelper = new ClauseHelperStub();
+
+        Where[] where1 = new Where[]{Where.field(USER.USERNAME).isEqualTo("sam")
+                .or(Where.field(USER.TIMESTAMP).isIn(10, 20))};
+        Where[] where2 = new Where[]{Where.field(USER.USERNAME).isEqualTo("josh")
+                .or(Where.field(USER.TIMESTAMP).isIn(30, 40))};
+        Where[] where3 = new Where[]{Where.field(USER.USERNAME).isEqualTo("josh")
+                .or(Where.field(USER.TIMESTAMP).isIn(30, 40, 50))};
+
+        String clause1 = clauseHelper.getCondition(where1);
+        String clause2 = clauseHelper.getCondition(where2);
+        String clause3 = clauseHelper.getCondition(where3);
+        Object[] args = clauseHelper.getConditionBindArgs(where2);
+
+        assertSame(clause1, clause2);
+        assertEquals("(username IS ? OR timestamp IN (?,?,?))", clause3);
+        assertEquals(3, args.length);
+        assertEquals("josh", args[0]);
+        assertEquals(30L, args[1]);
+        assertEquals(40L, args[2]);
+    }
+
+    @Test
+    public void testStartsWithIsARange() {
+        ClauseHelper clauseHelper = new ClauseHelperStub();
+
+        Where[] where = new Where[]{Where.field(USER.USERNAME).startsWith("jo")};
+        String clause = clauseHelper.getCondition(where);
+        String[] args = clauseHelper.getConditionArgs(where);
+
+        assertEquals("(username >= ? AND username < ?)", clause);
+        assertEquals("jo", args[0]);
+        assertEquals("jp", args[1]);
+    }
+
+    @Test
+    public void testStartsWithIgnoreCaseUsesNoCase() {
+        ClauseHelper clauseHelper = new ClauseHelperStub();
+
+        Where[] where = new Where[]{Where.field(USER.USERNAME).startsWithIgnoreCase("A@")};
+        String clause = clauseHelper.getCondition(where);
+        String[] args = clauseHelper.getConditionArgs(where);
+
+        assertEquals("(username COLLATE NOCASE >= ? AND username COLLATE NOCASE < ?)", clause);
+        assertEquals("a@", args[0]);
+        assertEquals("a[", args[1]);
+    }
+
     @Test
     public void testOrderByAscBuiltFromClause() {
         ClauseHelper clauseHelper = new ClauseHelperStub();
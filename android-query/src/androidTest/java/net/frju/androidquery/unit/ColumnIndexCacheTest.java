@@ -0,0 +1,28 @@
+package net.frju.androidquery.unit;
+
+import android.database.MatrixCursor;
+
+import net.frju.androidquery.database.ColumnIndexCache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+public class ColumnIndexCacheTest {
+
+    @Test
+    public void testProjectionsAreResolvedOnce() {
+        ColumnIndexCache columnIndexCache = new ColumnIndexCache("id", "username", "count");
+
+        int[] full = columnIndexCache.getMappedIndexes(new MatrixCursor(new String[]{"id", "username", "count"}));
+        int[] partial = columnIndexCache.getMappedIndexes(new MatrixCursor(new String[]{"count", "other"}));
+
+        assertArrayEquals(new int[]{0, 1, 2}, full);
+        assertArrayEquals(new int[]{2, ColumnIndexCache.NOT_MAPPED}, partial);
+
+        // switching between the projections keeps both of them
+        assertSame(full, columnIndexCache.getMappedIndexes(new MatrixCursor(new String[]{"id", "username", "count"})));
+        assertSame(partial, columnIndexCache.getMappedIndexes(new MatrixCursor(new String[]{"count", "other"})));
+    }
+}
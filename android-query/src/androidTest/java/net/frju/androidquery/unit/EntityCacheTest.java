@@ -0,0 +1,139 @@
+package net.frju.androidquery.unit;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import net.frju.androidquery.database.EntityCache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class EntityCacheTest {
+
+    private static final String TABLE = "users";
+
+    @Test
+    public void testRowIsCached() {
+        EntityCache entityCache = new EntityCache(10);
+
+        assertNull(entityCache.get(TABLE, 1));
+        entityCache.put(TABLE, "id", createCursor(1, "sam"), entityCache.getVersion()).close();
+
+        // 1 and 1L are bound as the same INTEGER
+        Cursor cursor = entityCache.get(TABLE, 1L);
+        assertNotNull(cursor);
+        assertEquals(1, cursor.getCount());
+        cursor.moveToFirst();
+        assertEquals("sam", cursor.getString(1));
+        cursor.close();
+
+        assertEquals(1, entityCache.getHitCount());
+        assertEquals(1, entityCache.getMissCount());
+    }
+
+    @Test
+    public void testTextKeyIsNotTheIntegerOne() {
+        EntityCache entityCache = new EntityCache(10);
+
+        entityCache.put(TABLE, "id", createCursor(1, "sam"), entityCache.getVersion()).close();
+        entityCache.put(TABLE, "id", createCursor("1", "josh"), entityCache.getVersion()).close();
+
+        Cursor cursor = entityCache.get(TABLE, 1);
+        cursor.moveToFirst();
+        assertEquals("sam", cursor.getString(1));
+        cursor.close();
+
+        cursor = entityCache.get(TABLE, "1");
+        cursor.moveToFirst();
+        assertEquals("josh", cursor.getString(1));
+        cursor.close();
+
+        entityCache.invalidate(TABLE, 1L);
+        assertNull(entityCache.get(TABLE, 1));
+        assertNotNull(entityCache.get(TABLE, "1"));
+    }
+
+    @Test
+    public void testRowIsCachedUnderItsStoredKey() {
+        EntityCache entityCache = new EntityCache(10);
+
+        // like a lookup of "01" in an INTEGER column, which SQLite converts to 1
+        entityCache.put(TABLE, "id", createCursor(1, "sam"), entityCache.getVersion()).close();
+        assertNull(entityCache.get(TABLE, "01"));
+
+        entityCache.invalidate(TABLE, 1);
+        assertEquals(0, entityCache.getSize());
+    }
+
+    @Test
+    public void testMissingRowIsNotCached() {
+        EntityCache entityCache = new EntityCache(10);
+
+        entityCache.put(TABLE, "id", createCursor(), entityCache.getVersion()).close();
+
+        assertNull(entityCache.get(TABLE, 1));
+    }
+
+    @Test
+    public void testWriteInvalidatesOnlyTheWrittenRow() {
+        EntityCache entityCache = new EntityCache(10);
+
+        entityCache.put(TABLE, "id", createCursor(1, "sam"), entityCache.getVersion()).close();
+        entityCache.put(TABLE, "id", createCursor(2, "josh"), entityCache.getVersion()).close();
+        entityCache.invalidate(TABLE, 1);
+
+        assertNull(entityCache.get(TABLE, 1));
+        assertNotNull(entityCache.get(TABLE, 2));
+
+        entityCache.invalidate(TABLE);
+
+        assertNull(entityCache.get(TABLE, 2));
+    }
+
+    @Test
+    public void testTableInvalidationIgnoresTheTableNameCase() {
+        EntityCache entityCache = new EntityCache(10);
+
+        entityCache.put(TABLE, "id", createCursor(1, "sam"), entityCache.getVersion()).close();
+        // like the name built by a ContentProvider from its uri, which does not know the written rows
+        entityCache.invalidate("Users");
+
+        assertNull(entityCache.get(TABLE, 1));
+    }
+
+    @Test
+    public void testRowReadDuringAWriteIsNotCached() {
+        EntityCache entityCache = new EntityCache(10);
+
+        long version = entityCache.getVersion();
+        entityCache.invalidate(TABLE, 1);
+        entityCache.put(TABLE, "id", createCursor(1, "sam"), version).close();
+
+        assertNull(entityCache.get(TABLE, 1));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedRowIsEvicted() {
+        EntityCache entityCache = new EntityCache(2);
+
+        entityCache.put(TABLE, "id", createCursor(1, "sam"), entityCache.getVersion()).close();
+        entityCache.put(TABLE, "id", createCursor(2, "josh"), entityCache.getVersion()).close();
+        entityCache.get(TABLE, 1).close();
+        entityCache.put(TABLE, "id", createCursor(3, "adam"), entityCache.getVersion()).close();
+
+        assertNull(entityCache.get(TABLE, 2));
+        assertNotNull(entityCache.get(TABLE, 1));
+        assertEquals(2, entityCache.getSize());
+    }
+
+    private Cursor createCursor(Object... values) {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"id", "username"});
+        if (values.length > 0) {
+            cursor.addRow(values);
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,150 @@
+package net.frju.androidquery.unit;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import net.frju.androidquery.database.QueryCache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class QueryCacheTest {
+
+    private static final String TABLE = "users";
+
+    @Test
+    public void testResultIsCached() {
+        QueryCache queryCache = new QueryCache(10000);
+        String key = QueryCache.getKey("SELECT username FROM users WHERE _id > ?", new String[]{"1"});
+
+        assertNull(queryCache.get(key));
+        queryCache.put(key, new String[]{TABLE}, createCursor("sam", "josh"), queryCache.getVersion()).close();
+
+        Cursor cursor = queryCache.get(key);
+        assertNotNull(cursor);
+        assertEquals(2, cursor.getCount());
+        cursor.moveToLast();
+        assertEquals("josh", cursor.getString(0));
+        cursor.close();
+
+        assertEquals(1, queryCache.getHitCount());
+        assertEquals(1, queryCache.getMissCount());
+    }
+
+    @Test
+    public void testBindArgsArePartOfTheKey() {
+        QueryCache queryCache = new QueryCache(10000);
+        String sql = "SELECT username FROM users WHERE _id > ?";
+
+        queryCache.put(QueryCache.getKey(sql, new String[]{"1"}), new String[]{TABLE}, createCursor("sam"), queryCache.getVersion()).close();
+
+        assertNull(queryCache.get(QueryCache.getKey(sql, new String[]{"2"})));
+    }
+
+    @Test
+    public void testInvalidationIgnoresTheTableNameCase() {
+        QueryCache queryCache = new QueryCache(10000);
+        String key = QueryCache.getKey("SELECT username FROM users", null);
+
+        queryCache.put(key, new String[]{TABLE}, createCursor("sam"), queryCache.getVersion()).close();
+        // like the name built by a ContentProvider from its uri
+        queryCache.invalidate("Users");
+
+        assertNull(queryCache.get(key));
+    }
+
+    @Test
+    public void testWriteInvalidatesTheTableEntries() {
+        QueryCache queryCache = new QueryCache(10000);
+        String key = QueryCache.getKey("SELECT username FROM users", null);
+        String otherKey = QueryCache.getKey("SELECT username FROM posts", null);
+
+        queryCache.put(key, new String[]{TABLE}, createCursor("sam"), queryCache.getVersion()).close();
+        queryCache.put(otherKey, new String[]{"posts"}, createCursor("sam"), queryCache.getVersion()).close();
+        queryCache.invalidate(TABLE);
+
+        assertNull(queryCache.get(key));
+        assertNotNull(queryCache.get(otherKey));
+    }
+
+    @Test
+    public void testResultReadDuringAWriteIsNotCached() {
+        QueryCache queryCache = new QueryCache(10000);
+        String key = QueryCache.getKey("SELECT username FROM users", null);
+
+        long version = queryCache.getVersion();
+        queryCache.invalidate(TABLE);
+        queryCache.put(key, new String[]{TABLE}, createCursor("sam"), version).close();
+
+        assertNull(queryCache.get(key));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        QueryCache queryCache = new QueryCache(400);
+        String firstKey = QueryCache.getKey("SELECT username FROM users WHERE _id = 1", null);
+        String secondKey = QueryCache.getKey("SELECT username FROM users WHERE _id = 2", null);
+
+        queryCache.put(firstKey, new String[]{TABLE}, createCursor("sam"), queryCache.getVersion()).close();
+        queryCache.put(secondKey, new String[]{TABLE}, createCursor("josh"), queryCache.getVersion()).close();
+
+        assertNull(queryCache.get(firstKey));
+        assertNotNull(queryCache.get(secondKey));
+        assertEquals(true, queryCache.getSize() <= queryCache.getMaxSize());
+    }
+
+    @Test
+    public void testResultOverBudgetIsNotCopied() {
+        QueryCache queryCache = new QueryCache(400);
+        String key = QueryCache.getKey("SELECT username FROM users", null);
+        Cursor cursor = createCursor("sam", "josh", "angie", "gill", "clyde", "sam", "josh", "angie", "gill", "clyde");
+
+        Cursor result = queryCache.put(key, new String[]{TABLE}, cursor, queryCache.getVersion());
+
+        // the same cursor, rewound
+        assertSame(cursor, result);
+        assertEquals(-1, result.getPosition());
+        assertEquals(10, result.getCount());
+        result.close();
+
+        assertNull(queryCache.get(key));
+        assertEquals(0, queryCache.getSize());
+    }
+
+    @Test
+    public void testCachedValuesAreConvertedLikeSqlite() {
+        QueryCache queryCache = new QueryCache(10000);
+        String key = QueryCache.getKey("SELECT username, data FROM users", null);
+
+        MatrixCursor cursor = new MatrixCursor(new String[]{"username", "data"});
+        cursor.addRow(new Object[]{" 12.5e1abc", new byte[]{1, 2}});
+        cursor.addRow(new Object[]{"sam", null});
+        queryCache.put(key, new String[]{TABLE}, cursor, queryCache.getVersion()).close();
+
+        Cursor result = queryCache.get(key);
+        assertNotNull(result);
+        result.moveToFirst();
+        assertEquals(12, result.getLong(0));
+        assertEquals(125.0, result.getDouble(0), 0.0001);
+        // the blob of the cached row must not be changed through the returned array
+        result.getBlob(1)[0] = 9;
+        assertEquals(1, result.getBlob(1)[0]);
+        result.moveToNext();
+        assertEquals(0, result.getLong(0));
+        assertEquals(0.0, result.getDouble(0), 0.0001);
+        assertNull(result.getBlob(1));
+        result.close();
+    }
+
+    private Cursor createCursor(String... usernames) {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"username"});
+        for (String username : usernames) {
+            cursor.addRow(new Object[]{username});
+        }
+        return cursor;
+    }
+}
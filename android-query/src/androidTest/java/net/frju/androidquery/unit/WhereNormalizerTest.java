@@ -0,0 +1,81 @@
+package net.frju.androidquery.unit;
+
+import net.frju.androidquery.database.ClauseHelper;
+import net.frju.androidquery.database.WhereNormalizer;
+import net.frju.androidquery.gen.USER;
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.unit.mock.ClauseHelperStub;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class WhereNormalizerTest {
+
+    private final ClauseHelper mClauseHelper = new ClauseHelperStub();
+
+    @Test
+    public void testNestedAndAreFlattened() {
+        Where[] where = WhereNormalizer.normalize(new Where[]{
+                Where.field(USER.USERNAME).isEqualTo("sam")
+                        .and(Where.field(USER.COUNT).isGreaterThan(1))
+                        .and(Where.field(USER.RATING).isLessThan(2)),
+                Where.field(USER.TIMESTAMP).isNotNull()});
+
+        assertEquals(4, where.length);
+        assertEquals("(username IS ? AND count > ? AND rating < ? AND timestamp IS NOT NULL)", mClauseHelper.getCondition(where));
+    }
+
+    @Test
+    public void testOrChainBecomesIn() {
+        Where[] where = WhereNormalizer.normalize(new Where[]{
+                Where.field(USER.ID).isEqualTo(1)
+                        .or(Where.field(USER.COUNT).isGreaterThan(10))
+                        .or(Where.field(USER.ID).isEqualTo(2))
+                        .or(Where.field(USER.ID).isIn(3, 4))});
+
+        assertEquals("(count > ? OR _id IN (?,?,?,?))", mClauseHelper.getCondition(where));
+        Object[] args = mClauseHelper.getConditionBindArgs(where);
+        assertEquals(10L, args[0]);
+        assertEquals(1L, args[1]);
+        assertEquals(4L, args[4]);
+    }
+
+    @Test
+    public void testSingleValueInBecomesEquality() {
+        Where[] where = WhereNormalizer.normalize(new Where[]{Where.field(USER.ID).isIn(1)});
+        assertEquals("_id IS ?", mClauseHelper.getCondition(where));
+
+        // a NULL column is NOT IN (1) but IS NOT 1, so it is kept
+        where = WhereNormalizer.normalize(new Where[]{Where.field(USER.ID).isNotIn(1)});
+        assertEquals("_id NOT IN (?)", mClauseHelper.getCondition(where));
+    }
+
+    @Test
+    public void testDuplicatesAreRemoved() {
+        Where[] where = WhereNormalizer.normalize(new Where[]{
+                Where.field(USER.USERNAME).isEqualTo("sam"),
+                Where.field(USER.COUNT).isBetween(1, 2),
+                Where.field(USER.USERNAME).isEqualTo("sam"),
+                Where.field(USER.COUNT).isBetween(1, 2)});
+
+        assertEquals("(username IS ? AND count BETWEEN ?AND?)", mClauseHelper.getCondition(where));
+    }
+
+    @Test
+    public void testConstantBranchesAreFolded() {
+        // an empty NOT IN is always true, an empty IN always false
+        Where[] where = WhereNormalizer.normalize(new Where[]{
+                Where.field(USER.USERNAME).isEqualTo("sam"),
+                Where.field(USER.ID).isNotIn(),
+                Where.field(USER.COUNT).isIn().or(Where.field(USER.RATING).isGreaterThan(1))});
+
+        assertEquals("(username IS ? AND rating > ?)", mClauseHelper.getCondition(where));
+
+        assertEquals(0, WhereNormalizer.normalize(new Where[]{Where.field(USER.ID).isNotIn()}).length);
+
+        Where[] alwaysFalse = new Where[]{Where.field(USER.ID).isIn(), Where.field(USER.COUNT).isGreaterThan(1)};
+        assertSame(alwaysFalse, WhereNormalizer.normalize(alwaysFalse));
+    }
+}
@@ -24,12 +24,17 @@ import android.net.Uri;
 import android.provider.BaseColumns;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.text.TextUtils;
 
+import net.frju.androidquery.operation.condition.In;
 import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.join.Join;
 import net.frju.androidquery.operation.keyword.Limit;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
 /**
  * @author Samuel Kirton [sam@memtrip.com]
  */
@@ -66,7 +71,7 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
     }
 
     @Override
-    protected long insert(@NonNull String tableName, @NonNull ContentValues values, @NonNull Query.ConflictResolution conflictResolution) {
+    protected long insert(@NonNull String tableName, @NonNull ContentValues values, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
         Uri resultUri = mContentResolver.insert(getUri(tableName, null), values);
 
         try {
@@ -77,20 +82,22 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
     }
 
     @Override
-    protected int bulkInsert(@NonNull String tableName, @NonNull ContentValues[] valuesArray, @NonNull Query.ConflictResolution conflictResolution) {
+    protected int bulkInsert(@NonNull String tableName, @NonNull ContentValues[] valuesArray, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
         return mContentResolver.bulkInsert(getUri(tableName, null), valuesArray);
     }
 
     @Override
-    protected int bulkUpdate(@NonNull String tableName, @Nullable String uriSuffix, @NonNull ContentValues[] valuesArray, @NonNull Where[][] conditionsArray, @NonNull Query.ConflictResolution conflictResolution) {
+    protected int bulkUpdate(@NonNull String tableName, @Nullable String uriSuffix, @NonNull ContentValues[] valuesArray, @NonNull Where[][] conditionsArray, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
         int nbUpdate = 0;
 
         for (int i = 0; i < valuesArray.length; i++) {
-            nbUpdate += mContentResolver.update(getUri(tableName, uriSuffix),
-                    valuesArray[i],
-                    mClauseHelper.getCondition(conditionsArray[i]),
-                    mClauseHelper.getConditionArgs(conditionsArray[i])
-            );
+            for (Where[] where : splitConditions(conditionsArray[i])) {
+                nbUpdate += mContentResolver.update(getUri(tableName, uriSuffix),
+                        valuesArray[i],
+                        mClauseHelper.getCondition(where),
+                        mClauseHelper.getConditionArgs(where)
+                );
+            }
         }
 
         return nbUpdate;
@@ -100,7 +107,7 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
     protected
     @Nullable
     Cursor query(@NonNull String tableName, @NonNull String[] columns, @Nullable Where[] where, @Nullable Join[] joins,
-                 @Nullable String groupBy, @Nullable String having, @Nullable OrderBy[] orderBy, @Nullable Limit limit) {
+                 @Nullable String groupBy, @Nullable Where[] having, @Nullable OrderBy[] orderBy, @Nullable Limit limit) {
 
         if (joins != null && joins.length > 0) {
             throw new SQLException("Join where not supported by ContentProvider");
@@ -110,6 +117,10 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
             throw new SQLException("Having where not supported by ContentProvider");
         } else if (limit != null) {
             throw new SQLException("Limit where not supported by ContentProvider");
+        } else if (mClauseHelper.getConditionBindArgsCount(where) > ClauseHelper.MAX_BIND_ARGS) {
+            // the rows of several queries could not be merged in the requested order
+            throw new IllegalArgumentException("A select through a ContentProvider can not have more than "
+                    + ClauseHelper.MAX_BIND_ARGS + " arguments, split its IN operators");
         } else {
             return mContentResolver.query(
                     getUri(tableName, null),
@@ -122,16 +133,32 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
     }
 
     @Override
-    protected int delete(@NonNull String tableName, @Nullable String uriSuffix, @Nullable Where[] where) {
-        return mContentResolver.delete(
-                getUri(tableName, uriSuffix),
-                mClauseHelper.getCondition(where),
-                mClauseHelper.getConditionArgs(where)
-        );
+    protected int delete(@NonNull String tableName, @Nullable String uriSuffix, @Nullable Where[] where, boolean notifyChange) {
+        int nbDeleted = 0;
+
+        for (Where[] chunk : splitConditions(where)) {
+            nbDeleted += mContentResolver.delete(
+                    getUri(tableName, uriSuffix),
+                    mClauseHelper.getCondition(chunk),
+                    mClauseHelper.getConditionArgs(chunk)
+            );
+        }
+
+        return nbDeleted;
     }
 
     @Override
     protected long count(@NonNull String tableName, @Nullable Where[] where) {
+        long count = 0;
+
+        for (Where[] chunk : splitConditions(where)) {
+            count += countChunk(tableName, chunk);
+        }
+
+        return count;
+    }
+
+    private long countChunk(@NonNull String tableName, @Nullable Where[] where) {
         Cursor c = null;
 
         // First try with the SQL method
@@ -169,6 +196,89 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
         }
     }
 
+    @Override
+    protected boolean exists(@NonNull DbModelDescriptor dbModelDescriptor, @Nullable Where[] where) {
+        for (Where[] chunk : splitConditions(where)) {
+            if (existsChunk(dbModelDescriptor, chunk)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean existsChunk(@NonNull DbModelDescriptor dbModelDescriptor, @Nullable Where[] where) {
+        String primaryKey = dbModelDescriptor.getPrimaryKeyDbName();
+
+        // Only one small column of the first row is needed, providers not supporting the limit simply ignore it.
+        // Tables without primary key have no such column, all of them are then read.
+        Cursor c = mContentResolver.query(
+                getUri(dbModelDescriptor.getTableDbName(), null).buildUpon()
+                        .appendQueryParameter(BaseContentProvider.QUERY_PARAMETER_LIMIT, "1")
+                        .build(),
+                !TextUtils.isEmpty(primaryKey) ? new String[]{primaryKey} : null,
+                mClauseHelper.getCondition(where),
+                mClauseHelper.getConditionArgs(where),
+                null
+        );
+
+        if (c == null) {
+            throw new SQLException("Could not query " + dbModelDescriptor.getTableDbName());
+        }
+
+        try {
+            return c.moveToFirst();
+        } finally {
+            c.close();
+        }
+    }
+
+    /**
+     * A ContentProvider can not read the IN values from a temporary table. Above the SQLite limit of bind arguments,
+     * the where clause is split on its biggest IN operator, whose results can be summed since each row matches
+     * at most one of its values.
+     *
+     * @return the where clauses to run one after the other
+     */
+    private Where[][] splitConditions(@Nullable Where[] where) {
+        int argsCount = mClauseHelper.getConditionBindArgsCount(where);
+        if (argsCount <= ClauseHelper.MAX_BIND_ARGS) {
+            return new Where[][]{where};
+        }
+
+        int inIndex = -1;
+        for (int i = 0; i < where.length; i++) {
+            if (where[i] instanceof In && !((In) where[i]).hasNot()
+                    && (inIndex == -1 || ((In) where[i]).getValues().length > ((In) where[inIndex]).getValues().length)) {
+                inIndex = i;
+            }
+        }
+
+        int otherArgsCount = inIndex != -1 ? argsCount - ((In) where[inIndex]).getValues().length : argsCount;
+        if (inIndex == -1 || otherArgsCount >= ClauseHelper.MAX_BIND_ARGS) {
+            throw new IllegalArgumentException("A query through a ContentProvider can not have more than "
+                    + ClauseHelper.MAX_BIND_ARGS + " arguments, unless they come from one IN operator of the where clause");
+        }
+
+        In in = (In) where[inIndex];
+        // the duplicates would count the same rows twice
+        LinkedHashSet<Object> distinctValues = new LinkedHashSet<>();
+        for (Object value : in.getValues()) {
+            distinctValues.add(ClauseHelper.getBindArg(value));
+        }
+        Object[] values = distinctValues.toArray();
+
+        int chunkSize = ClauseHelper.MAX_BIND_ARGS - otherArgsCount;
+        Where[][] result = new Where[(values.length + chunkSize - 1) / chunkSize][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = where.clone();
+            result[i][inIndex] = Where.field(in.getColumn()).isIn(
+                    Arrays.copyOfRange(values, i * chunkSize, Math.min((i + 1) * chunkSize, values.length)));
+        }
+
+        return result;
+    }
+
     @Override
     protected
     @Nullable
@@ -16,6 +16,12 @@ import java.util.List;
 
 public abstract class BaseContentProvider extends ContentProvider {
 
+    /**
+     * Optional query parameter of the uri, the maximum number of rows to return
+     */
+    public static final String QUERY_PARAMETER_LIMIT = "limit";
+
+    private BaseLocalDatabaseProvider mLocalProvider;
     private SQLiteDatabase mDatabase;
 
     @Override
@@ -31,7 +37,8 @@ public abstract class BaseContentProvider extends ContentProvider {
 
     @Override
     public boolean onCreate() {
-        mDatabase = getLocalSQLProvider().getDatabase();
+        mLocalProvider = getLocalSQLProvider();
+        mDatabase = mLocalProvider.getDatabase();
         return true;
     }
 
@@ -69,7 +76,7 @@ public abstract class BaseContentProvider extends ContentProvider {
         String[] nameAndSelection = getTableRealNameAndSelection(uri, selection);
 
         Cursor cursor = mDatabase.query(nameAndSelection[0], projection, nameAndSelection[1], selectionArgs, null, null,
-                sortOrder, null);
+                sortOrder, uri.getQueryParameter(QUERY_PARAMETER_LIMIT));
 
         if (cursor != null) {
             cursor.setNotificationUri(getContext().getContentResolver(), uri);
@@ -92,6 +99,7 @@ public abstract class BaseContentProvider extends ContentProvider {
         mDatabase.setTransactionSuccessful();
         mDatabase.endTransaction();
 
+        mLocalProvider.onExternalWrite(uri.getLastPathSegment());
         getContext().getContentResolver().notifyChange(uri, null);
 
         return nbInsert;
@@ -104,6 +112,7 @@ public abstract class BaseContentProvider extends ContentProvider {
         long newId = mDatabase.insert(uri.getLastPathSegment(), null, values);
 
         if (newId > -1) {
+            mLocalProvider.onExternalWrite(uri.getLastPathSegment());
             getContext().getContentResolver().notifyChange(uri, null);
             return ContentUris.withAppendedId(uri, newId);
         } else {
@@ -117,6 +126,7 @@ public abstract class BaseContentProvider extends ContentProvider {
 
         int count = mDatabase.update(nameAndSelection[0], values, nameAndSelection[1], selectionArgs);
         if (count > 0) {
+            mLocalProvider.onExternalWrite(nameAndSelection[0]);
             getContext().getContentResolver().notifyChange(uri, null);
         }
 
@@ -129,6 +139,7 @@ public abstract class BaseContentProvider extends ContentProvider {
 
         int nbDeleted = mDatabase.delete(nameAndSelection[0], nameAndSelection[1], selectionArgs);
         if (nbDeleted > 0 || TextUtils.isEmpty(nameAndSelection[1])) {
+            mLocalProvider.onExternalWrite(nameAndSelection[0]);
             getContext().getContentResolver().notifyChange(uri, null);
         }
 
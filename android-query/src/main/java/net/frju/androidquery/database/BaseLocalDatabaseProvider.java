@@ -19,31 +19,72 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.CursorWrapper;
 import android.database.DatabaseUtils;
 import android.database.SQLException;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
+import net.frju.androidquery.operation.condition.In;
+import net.frju.androidquery.operation.condition.Param;
 import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.join.Join;
 import net.frju.androidquery.operation.keyword.Limit;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * @author Samuel Kirton [sam@memtrip.com]
  */
 public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
 
+    /**
+     * Default SQLITE_MAX_VARIABLE_NUMBER value
+     */
+    static final int MAX_SQL_VARIABLES = 999;
+
     private final SQLiteDatabase mDatabase;
+    private final AtomicLong mNextInValuesId = new AtomicLong();
     private final String[] mSchemaArray;
     private final String[][] mColumnsSqlArray;
     private final String[] mTableRealNameArray;
     private final String[] mCreateIndexQuery;
+    private final boolean mSupportsUpsert;
+    private final NotificationDispatcher mNotificationDispatcher;
+    private final ThreadLocal<TransactionState> mTransactionState = new ThreadLocal<TransactionState>() {
+        @Override
+        protected TransactionState initialValue() {
+            return new TransactionState();
+        }
+    };
+
+    /**
+     * SQLite transactions are bound to the thread which started them, so is that state
+     */
+    private static class TransactionState {
+        final ArrayList<Boolean> successfulLevels = new ArrayList<>();
+        final LinkedHashSet<Uri> pendingNotificationUris = new LinkedHashSet<>();
+        final HashSet<String> changedTables = new HashSet<>();
+    }
 
     private class DbInitFeedback {
         boolean onCreateCalled = false;
@@ -56,6 +97,10 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
     public BaseLocalDatabaseProvider(@NonNull Context context) {
         super(context);
 
+        mNotificationDispatcher = new NotificationDispatcher(context.getContentResolver(), context.getMainLooper());
+        mNotificationDispatcher.setCoalescingWindow(getNotificationCoalescingWindow());
+        mClauseHelper.setMaxInlinedInValues(getMaxInlinedInValues());
+
         Class<?> modelClassDef[] = getResolver().getModelsForProvider(this.getClass());
         int modelCount = modelClassDef.length;
 
@@ -101,6 +146,9 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
         //TODO should handle error cases and notably the corrupted database one: we could reconstruct it
         mDatabase = openHelper.getWritableDatabase();
 
+        // UPSERT is available since SQLite 3.24.0
+        mSupportsUpsert = isSQLiteVersionAtLeast(3, 24);
+
         // We call that after the creation of the database to be able to call AndroidQuery methods in here
         if (dbInitFeedback.onCreateCalled) {
             new Handler(mContext.getMainLooper()).post(new Runnable() {
@@ -162,6 +210,23 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
 
     protected abstract int getDbVersion();
 
+    /**
+     * @return the delay in ms during which the change notifications are collected before being sent once per table.
+     * By default it's 0 and they are sent right away (or once the outermost transaction is committed).
+     */
+    protected long getNotificationCoalescingWindow() {
+        return 0;
+    }
+
+    /**
+     * @return the number of values above which an IN operator reads them from a temporary table filled for the
+     * query, instead of binding one variable per value. It must stay below the SQLite limit of 999 variables.
+     * With WAL enabled, the selects using that temporary table are read entirely in memory.
+     */
+    protected int getMaxInlinedInValues() {
+        return 100;
+    }
+
     protected void onCreate(@NonNull SQLiteDatabase db) {
         for (String schema : mSchemaArray) {
             db.execSQL(schema);
@@ -232,20 +297,20 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
     }
 
     @Override
-    protected long insert(@NonNull String tableName, @NonNull ContentValues values, @NonNull Query.ConflictResolution conflictResolution) {
+    protected long insert(@NonNull String tableName, @NonNull ContentValues values, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
         long newId = mDatabase.insertWithOnConflict(tableName, null, values, convertEnum(conflictResolution));
 
         if (newId != -1) {
-            mContext.getContentResolver().notifyChange(getUri(tableName, null), null);
+            onTableChanged(tableName, null, notifyChange);
         }
 
         return newId;
     }
 
     @Override
-    protected int bulkInsert(@NonNull String tableName, @NonNull ContentValues[] valuesArray, @NonNull Query.ConflictResolution conflictResolution) {
+    protected int bulkInsert(@NonNull String tableName, @NonNull ContentValues[] valuesArray, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
         int nbInsert = 0;
-        mDatabase.beginTransaction();
+        beginTransaction();
 
         try {
             for (ContentValues values : valuesArray) {
@@ -254,41 +319,256 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
                 }
             }
 
-            mDatabase.setTransactionSuccessful();
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+
+        if (nbInsert > 0) {
+            onTableChanged(tableName, null, notifyChange);
+        }
+
+        return nbInsert;
+    }
+
+    @Override
+    protected int bulkInsert(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull Object[] models, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
+        int nbInsert;
+        beginTransaction();
+
+        try {
+            nbInsert = executeInsert(dbModelDescriptor, models, conflictResolution);
+
+            setTransactionSuccessful();
         } finally {
-            mDatabase.endTransaction();
+            endTransaction();
         }
 
         if (nbInsert > 0) {
-            mContext.getContentResolver().notifyChange(getUri(tableName, null), null);
+            onTableChanged(dbModelDescriptor.getTableDbName(), null, notifyChange);
+        }
+
+        return nbInsert;
+    }
+
+    @Override
+    protected int save(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull Object[] models, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
+        ArrayList<Object> modelsToInsert = new ArrayList<>();
+        ArrayList<Object> modelsToSave = new ArrayList<>();
+        boolean hasListener = false;
+        for (Object model : models) {
+            if (isNewModel(dbModelDescriptor, model)) {
+                modelsToInsert.add(model);
+            } else {
+                modelsToSave.add(model);
+                hasListener |= model instanceof ModelListener;
+            }
+        }
+
+        if (modelsToSave.size() > 0 && TextUtils.isEmpty(dbModelDescriptor.getPrimaryKeyDbName())) {
+            throw new IllegalStateException("save require a primary key");
+        }
+
+        int nb = 0;
+        beginTransaction();
+
+        try {
+            // the listeners are told what will really happen, so the existing rows are needed for them too
+            HashSet<String> existingKeys = !modelsToSave.isEmpty() && (!mSupportsUpsert || hasListener)
+                    ? getExistingPrimaryKeys(dbModelDescriptor, modelsToSave) : null;
+
+            for (Object model : modelsToInsert) {
+                if (model instanceof ModelListener) {
+                    ((ModelListener) model).onPreInsert();
+                }
+            }
+            if (hasListener) {
+                HashSet<String> savedKeys = new HashSet<>(existingKeys);
+                for (Object model : modelsToSave) {
+                    if (model instanceof ModelListener) {
+                        // the same model could be saved twice in the batch
+                        if (savedKeys.add(String.valueOf(dbModelDescriptor.getPrimaryKeyValue(model)))) {
+                            ((ModelListener) model).onPreInsert();
+                        } else {
+                            ((ModelListener) model).onPreUpdate();
+                        }
+                    }
+                }
+            }
+
+            nb += executeInsert(dbModelDescriptor, modelsToInsert.toArray(), conflictResolution);
+
+            if (mSupportsUpsert) {
+                nb += executeUpsert(dbModelDescriptor, modelsToSave, conflictResolution);
+            } else {
+                nb += executeUpdateOrInsert(dbModelDescriptor, modelsToSave, existingKeys, conflictResolution);
+            }
+
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+
+        if (nb > 0) {
+            onTableChanged(dbModelDescriptor.getTableDbName(), null, notifyChange);
+        }
+
+        return nb;
+    }
+
+    private int executeInsert(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull Object[] models, @NonNull Query.ConflictResolution conflictResolution) {
+        if (models.length == 0) {
+            return 0;
+        }
+
+        int nbInsert = 0;
+
+        // The same compiled statement is reused for all the models, only the bind arguments change
+        SQLiteStatement statement = mDatabase.compileStatement(dbModelDescriptor.getInsertQuery(conflictResolution));
+        try {
+            for (Object model : models) {
+                dbModelDescriptor.bindTo(statement, model);
+
+                long newId = statement.executeInsert();
+                if (newId != -1) {
+                    dbModelDescriptor.setIdToModel(model, newId);
+                    nbInsert++;
+                }
+            }
+        } finally {
+            statement.close();
         }
 
         return nbInsert;
     }
 
+    private int executeUpsert(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull List<Object> models, @NonNull Query.ConflictResolution conflictResolution) {
+        if (models.isEmpty()) {
+            return 0;
+        }
+
+        int nb = 0;
+        boolean isPrimaryKeyAutoIncrement = dbModelDescriptor.isPrimaryKeyAutoIncrement();
+
+        SQLiteStatement statement = mDatabase.compileStatement(dbModelDescriptor.getUpsertQuery(conflictResolution));
+        try {
+            for (Object model : models) {
+                dbModelDescriptor.bindTo(statement, model);
+                if (isPrimaryKeyAutoIncrement) {
+                    dbModelDescriptor.bindPrimaryKeyTo(statement, model);
+                }
+
+                // executeInsert() would not return a valid row id when the row is updated
+                nb += statement.executeUpdateDelete();
+            }
+        } finally {
+            statement.close();
+        }
+
+        return nb;
+    }
+
+    /**
+     * @return the primary keys of the models which already are in the table, as strings
+     */
+    private HashSet<String> getExistingPrimaryKeys(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull List<Object> models) {
+        String tableName = dbModelDescriptor.getTableDbName();
+        String primaryKeyName = dbModelDescriptor.getPrimaryKeyDbName();
+
+        Object[] keys = new Object[models.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = dbModelDescriptor.getPrimaryKeyValue(models.get(i));
+        }
+
+        // already inside the transaction of save()
+        HashSet<String> existingKeys = new HashSet<>();
+        Where[] where = new Where[]{Where.field(primaryKeyName).isIn(keys)};
+        InValues inValues = fillInValues(where);
+        try {
+            Cursor cursor = rawQueryWithArgs("SELECT " + primaryKeyName + " FROM " + tableName + " WHERE " + mClauseHelper.getCondition(where),
+                    inValues.bind(mClauseHelper.getConditionBindArgs(where)));
+            try {
+                while (cursor.moveToNext()) {
+                    existingKeys.add(cursor.getString(0));
+                }
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            clearInValues(inValues);
+        }
+
+        return existingKeys;
+    }
+
+    /**
+     * Fallback of executeUpsert for SQLite versions without UPSERT support: the models are dispatched between
+     * one UPDATE and one INSERT compiled statements, depending on the existing primary keys.
+     * Like with the UPSERT, the inserted models keep their primary key.
+     */
+    private int executeUpdateOrInsert(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull List<Object> models, @NonNull HashSet<String> existingKeys,
+                                      @NonNull Query.ConflictResolution conflictResolution) {
+        if (models.isEmpty()) {
+            return 0;
+        }
+
+        int nb = 0;
+        boolean isPrimaryKeyAutoIncrement = dbModelDescriptor.isPrimaryKeyAutoIncrement();
+
+        SQLiteStatement updateStatement = mDatabase.compileStatement(dbModelDescriptor.getUpdateQuery(conflictResolution));
+        SQLiteStatement insertStatement = mDatabase.compileStatement(dbModelDescriptor.getInsertWithPrimaryKeyQuery(conflictResolution));
+        try {
+            for (Object model : models) {
+                String key = String.valueOf(dbModelDescriptor.getPrimaryKeyValue(model));
+
+                if (existingKeys.contains(key)) {
+                    dbModelDescriptor.bindTo(updateStatement, model);
+                    dbModelDescriptor.bindPrimaryKeyTo(updateStatement, model);
+                    nb += updateStatement.executeUpdateDelete();
+                } else {
+                    dbModelDescriptor.bindTo(insertStatement, model);
+                    if (isPrimaryKeyAutoIncrement) {
+                        dbModelDescriptor.bindPrimaryKeyTo(insertStatement, model);
+                    }
+                    if (insertStatement.executeInsert() != -1) {
+                        // the same model could be saved twice in the batch
+                        existingKeys.add(key);
+                        nb++;
+                    }
+                }
+            }
+        } finally {
+            updateStatement.close();
+            insertStatement.close();
+        }
+
+        return nb;
+    }
+
     @Override
-    protected int bulkUpdate(@NonNull String tableName, @Nullable String uriSuffix, @NonNull ContentValues[] valuesArray, @NonNull Where[][] conditionsArray, @NonNull Query.ConflictResolution conflictResolution) {
+    protected int bulkUpdate(@NonNull String tableName, @Nullable String uriSuffix, @NonNull ContentValues[] valuesArray, @NonNull Where[][] conditionsArray, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
         int nbUpdate = 0;
-        mDatabase.beginTransaction();
+        beginTransaction();
 
+        InValues inValues = null;
         try {
+            inValues = fillInValues(conditionsArray);
+
             for (int i = 0; i < valuesArray.length; i++) {
-                nbUpdate += mDatabase.updateWithOnConflict(
-                        tableName,
-                        valuesArray[i],
-                        mClauseHelper.getCondition(conditionsArray[i]),
-                        mClauseHelper.getConditionArgs(conditionsArray[i]),
-                        convertEnum(conflictResolution)
-                );
+                nbUpdate += executeUpdate(tableName, valuesArray[i], conditionsArray[i],
+                        inValues.bind(mClauseHelper.getConditionBindArgs(conditionsArray[i])), conflictResolution);
             }
 
-            mDatabase.setTransactionSuccessful();
+            setTransactionSuccessful();
         } finally {
-            mDatabase.endTransaction();
+            if (inValues != null) {
+                clearInValues(inValues);
+            }
+            endTransaction();
         }
 
         if (nbUpdate > 0) {
-            mContext.getContentResolver().notifyChange(getUri(tableName, uriSuffix), null);
+            onTableChanged(tableName, uriSuffix, notifyChange);
         }
 
         return nbUpdate;
@@ -298,37 +578,69 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
     protected
     @Nullable
     Cursor query(@NonNull String tableName, @NonNull String[] columns, @Nullable Where[] where, @Nullable Join[] joins,
-                 @Nullable String groupBy, @Nullable String having, @Nullable OrderBy[] orderBy, @Nullable Limit limit) {
+                 @Nullable String groupBy, @Nullable Where[] having, @Nullable OrderBy[] orderBy, @Nullable Limit limit) {
+        return query(tableName, columns, where, joins, groupBy, having, orderBy, limit, true);
+    }
+
+    /**
+     * Same as {@link #query(String, String[], Where[], Join[], String, Where[], OrderBy[], Limit)}
+     *
+     * @param useQueryCache false for the results read only once, which would only evict the useful ones from the query cache
+     */
+    @Nullable
+    Cursor query(@NonNull String tableName, @NonNull String[] columns, @Nullable Where[] where, @Nullable Join[] joins,
+                 @Nullable String groupBy, @Nullable Where[] having, @Nullable OrderBy[] orderBy, @Nullable Limit limit,
+                 boolean useQueryCache) {
 
+        String sql;
+        Object[] args = mClauseHelper.getConditionBindArgs(where);
+        if (having != null && having.length > 0) {
+            // the HAVING clause comes after the WHERE one
+            Object[] havingArgs = mClauseHelper.getConditionBindArgs(having);
+            Object[] allArgs = Arrays.copyOf(args, args.length + havingArgs.length);
+            System.arraycopy(havingArgs, 0, allArgs, args.length, havingArgs.length);
+            args = allArgs;
+        }
+
+        try {
+            sql = mClauseHelper.getSelectQuery(columns, tableName, joins, where, groupBy, having, orderBy, limit, getResolver());
+        } catch (Exception e) {
+            throw new SQLException(e.getMessage());
+        }
+
+        if (hasNotInlinedIns(where, having)) {
+            Cursor cursor = queryWithInValues(sql, args, where, having);
+            cursor.setNotificationUri(mContext.getContentResolver(), getUri(tableName, null));
+            return cursor;
+        }
+
+        return query(sql, args, useQueryCache && getQueryCache() != null ? getTables(tableName, joins, where, having) : null, tableName);
+    }
+
+    /**
+     * Run an already built select, through the query cache when enabled
+     *
+     * @param sql       the select
+     * @param args      the arguments of the select, bound with their type
+     * @param tables    the tables read by the select, only needed by the query cache
+     * @param tableName the table whose observers are notified of the changes
+     * @return the rows returned by the select
+     */
+    @Nullable
+    Cursor query(@NonNull String sql, @NonNull Object[] args, @Nullable String[] tables, @NonNull String tableName) {
         Cursor cursor;
+        QueryCache queryCache = getQueryCache();
 
-        if (joins != null && joins.length > 0) {
-            try {
-                String joinQuery = mClauseHelper.buildJoinQuery(
-                        columns,
-                        joins,
-                        tableName,
-                        where,
-                        orderBy,
-                        limit,
-                        getResolver()
-                );
-
-                cursor = mDatabase.rawQuery(joinQuery, mClauseHelper.getConditionArgs(where));
-            } catch (Exception e) {
-                throw new SQLException(e.getMessage());
+        if (queryCache != null && tables != null && mTransactionState.get().successfulLevels.isEmpty()) {
+            // Inside a transaction, the not yet committed data must not be cached
+            String key = QueryCache.getKey(sql, args);
+            cursor = queryCache.get(key);
+            if (cursor == null) {
+                long version = queryCache.getVersion();
+                cursor = queryCache.put(key, tables, rawQueryWithArgs(sql, args), version);
             }
         } else {
-            cursor = mDatabase.query(
-                    tableName,
-                    columns,
-                    mClauseHelper.getCondition(where),
-                    mClauseHelper.getConditionArgs(where),
-                    groupBy,
-                    having,
-                    mClauseHelper.getOrderBy(orderBy),
-                    mClauseHelper.getLimit(limit)
-            );
+            cursor = rawQueryWithArgs(sql, args);
         }
 
         if (cursor != null) {
@@ -339,16 +651,29 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
     }
 
     @Override
-    protected int delete(@NonNull String tableName, @Nullable String uriSuffix, @Nullable Where[] where) {
+    protected int delete(@NonNull String tableName, @Nullable String uriSuffix, @Nullable Where[] where, boolean notifyChange) {
         String whereClause = mClauseHelper.getCondition(where);
-        int nbDeleted = mDatabase.delete(
-                tableName,
-                whereClause,
-                mClauseHelper.getConditionArgs(where)
-        );
+        int nbDeleted;
+
+        if (hasNotInlinedIns(where)) {
+            beginTransaction();
+            InValues inValues = null;
+            try {
+                inValues = fillInValues(where);
+                nbDeleted = executeDelete(tableName, whereClause, inValues.bind(mClauseHelper.getConditionBindArgs(where)));
+                setTransactionSuccessful();
+            } finally {
+                if (inValues != null) {
+                    clearInValues(inValues);
+                }
+                endTransaction();
+            }
+        } else {
+            nbDeleted = executeDelete(tableName, whereClause, mClauseHelper.getConditionBindArgs(where));
+        }
 
         if (nbDeleted > 0 || TextUtils.isEmpty(whereClause)) {
-            mContext.getContentResolver().notifyChange(getUri(tableName, uriSuffix), null);
+            onTableChanged(tableName, uriSuffix, notifyChange);
         }
 
         return nbDeleted;
@@ -356,21 +681,445 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
 
     @Override
     protected long count(@NonNull String tableName, @Nullable Where[] where) {
-        return DatabaseUtils.queryNumEntries(
-                mDatabase,
-                tableName,
-                mClauseHelper.getCondition(where),
-                mClauseHelper.getConditionArgs(where)
-        );
+        String condition = mClauseHelper.getCondition(where);
+        String sql = "SELECT count(*) FROM " + tableName + (TextUtils.isEmpty(condition) ? "" : " WHERE " + condition);
+
+        return longForQuery(getTables(tableName, null, where), sql, where);
+    }
+
+    @Override
+    protected boolean exists(@NonNull DbModelDescriptor dbModelDescriptor, @Nullable Where[] where) {
+        String tableName = dbModelDescriptor.getTableDbName();
+        String condition = mClauseHelper.getCondition(where);
+        // SQLite stops at the first matching row
+        String sql = "SELECT EXISTS(SELECT 1 FROM " + tableName + (TextUtils.isEmpty(condition) ? "" : " WHERE " + condition) + " LIMIT 1)";
+
+        return longForQuery(getTables(tableName, null, where), sql, where) != 0;
+    }
+
+    private long longForQuery(String[] tables, String sql, Where[] where) {
+        Object[] args = mClauseHelper.getConditionBindArgs(where);
+
+        if (hasNotInlinedIns(where)) {
+            beginTransaction();
+            InValues inValues = null;
+            try {
+                inValues = fillInValues(where);
+                long result = executeLongQuery(sql, inValues.bind(args));
+                setTransactionSuccessful();
+                return result;
+            } finally {
+                if (inValues != null) {
+                    clearInValues(inValues);
+                }
+                endTransaction();
+            }
+        }
+
+        QueryCache queryCache = getQueryCache();
+        if (queryCache != null && mTransactionState.get().successfulLevels.isEmpty()) {
+            String key = QueryCache.getKey(sql, args);
+
+            Cursor cursor = queryCache.get(key);
+            if (cursor == null) {
+                long version = queryCache.getVersion();
+                cursor = queryCache.put(key, tables, rawQueryWithArgs(sql, args), version);
+            }
+
+            try {
+                return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+            } finally {
+                cursor.close();
+            }
+        }
+
+        return executeLongQuery(sql, args);
+    }
+
+    private long executeLongQuery(String sql, Object[] args) {
+        SQLiteStatement statement = mDatabase.compileStatement(sql);
+        try {
+            bindArgs(statement, args, 0);
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private int executeDelete(String tableName, String whereClause, Object[] whereArgs) {
+        SQLiteStatement statement = mDatabase.compileStatement("DELETE FROM " + tableName
+                + (TextUtils.isEmpty(whereClause) ? "" : " WHERE " + whereClause));
+        try {
+            bindArgs(statement, whereArgs, 0);
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private int executeUpdate(String tableName, ContentValues values, Where[] where, Object[] whereArgs, Query.ConflictResolution conflictResolution) {
+        if (values.size() == 0) {
+            throw new IllegalArgumentException("Empty values");
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE OR ").append(conflictResolution.toString()).append(' ').append(tableName).append(" SET ");
+        Object[] valueArgs = new Object[values.size()];
+        int i = 0;
+        for (String column : values.keySet()) {
+            sql.append(i > 0 ? "," : "").append(column).append("=?");
+            valueArgs[i++] = values.get(column);
+        }
+
+        String whereClause = mClauseHelper.getCondition(where);
+        if (!TextUtils.isEmpty(whereClause)) {
+            sql.append(" WHERE ").append(whereClause);
+        }
+
+        SQLiteStatement statement = mDatabase.compileStatement(sql.toString());
+        try {
+            bindArgs(statement, valueArgs, 0);
+            bindArgs(statement, whereArgs, valueArgs.length);
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Same as SQLiteDatabase.rawQuery(), except that the arguments are bound with their type instead of as strings
+     */
+    private Cursor rawQueryWithArgs(String sql, final Object[] args) {
+        return mDatabase.rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery, String editTable, SQLiteQuery query) {
+                bindArgs(query, args, 0);
+                return new SQLiteCursor(masterQuery, editTable, query);
+            }
+        }, sql, null, null);
+    }
+
+    private static void bindArgs(SQLiteProgram program, Object[] args, int offset) {
+        for (int i = 0; i < args.length; i++) {
+            bindArg(program, offset + i + 1, args[i]);
+        }
+    }
+
+    private static void bindArg(SQLiteProgram program, int index, Object arg) {
+        if (arg instanceof Param) {
+            throw new IllegalStateException("The parameter " + ((Param) arg).getName() + " can only be used in a prepared query");
+        } else if (arg instanceof In) {
+            throw new IllegalStateException("The values of the IN operator on " + ((In) arg).getColumn() + " are not in their temporary table");
+        }
+        DatabaseUtils.bindObjectToProgram(program, index, arg);
     }
 
     @Override
     protected
     @Nullable
     Cursor rawQuery(@NonNull String sql) {
+        // a raw query can modify any table
+        QueryCache queryCache = getQueryCache();
+        if (queryCache != null) {
+            queryCache.clear();
+        }
+        EntityCache entityCache = getEntityCache();
+        if (entityCache != null) {
+            entityCache.clear();
+        }
+
         return mDatabase.rawQuery(sql, null);
     }
 
+    @Override
+    public <T> T runInTransaction(@NonNull Callable<T> callable) throws Exception {
+        beginTransaction();
+
+        try {
+            T result = callable.call();
+            setTransactionSuccessful();
+            return result;
+        } finally {
+            endTransaction();
+        }
+    }
+
+    /**
+     * Same as SQLiteDatabase.beginTransaction(), except that nested transactions are SAVEPOINTs:
+     * a failing nested transaction does not force the rollback of the outer one.
+     */
+    private void beginTransaction() {
+        ArrayList<Boolean> successfulLevels = mTransactionState.get().successfulLevels;
+
+        if (successfulLevels.isEmpty()) {
+            mDatabase.beginTransaction();
+        } else {
+            mDatabase.execSQL("SAVEPOINT " + getSavepointName(successfulLevels.size()));
+        }
+
+        successfulLevels.add(false);
+    }
+
+    private void setTransactionSuccessful() {
+        ArrayList<Boolean> successfulLevels = mTransactionState.get().successfulLevels;
+        successfulLevels.set(successfulLevels.size() - 1, true);
+    }
+
+    private void endTransaction() {
+        TransactionState state = mTransactionState.get();
+        int level = state.successfulLevels.size() - 1;
+        boolean successful = state.successfulLevels.remove(level);
+
+        if (level > 0) {
+            String savepointName = getSavepointName(level);
+            if (!successful) {
+                // the leading ';' prevents Android from considering it as a full ROLLBACK
+                mDatabase.execSQL(";ROLLBACK TO " + savepointName);
+            }
+            mDatabase.execSQL("RELEASE " + savepointName);
+        } else {
+            try {
+                if (successful) {
+                    mDatabase.setTransactionSuccessful();
+                }
+                mDatabase.endTransaction();
+            } catch (RuntimeException e) {
+                successful = false;
+                throw e;
+            } finally {
+                // Entries cached by other threads during the transaction may be outdated now
+                QueryCache queryCache = getQueryCache();
+                EntityCache entityCache = getEntityCache();
+                for (String table : state.changedTables) {
+                    if (queryCache != null) {
+                        queryCache.invalidate(table);
+                    }
+                    if (entityCache != null) {
+                        entityCache.invalidate(table);
+                    }
+                }
+                state.changedTables.clear();
+
+                // Notifications are deferred until the outermost transaction is committed
+                ArrayList<Uri> uris = new ArrayList<>(state.pendingNotificationUris);
+                state.pendingNotificationUris.clear();
+                if (successful) {
+                    mNotificationDispatcher.notifyChange(uris);
+                }
+            }
+        }
+    }
+
+    private boolean hasNotInlinedIns(Where[]... conditions) {
+        for (Where[] where : conditions) {
+            if (!mClauseHelper.getNotInlinedIns(where).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The ids under which the values of the IN operators of one execution are put in their temporary table.
+     * Each execution uses new ids, so that the same IN can run several times at once.
+     */
+    private static final class InValues {
+        final IdentityHashMap<In, Long> ids = new IdentityHashMap<>();
+
+        /**
+         * @return the arguments, in which each IN operator is replaced by the id of its values
+         */
+        Object[] bind(Object[] args) {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] instanceof In) {
+                    args[i] = ids.get(args[i]);
+                }
+            }
+            return args;
+        }
+    }
+
+    /**
+     * Put the values of the IN operators which are not inlined in their temporary table. The temporary tables only
+     * exist for the connection which created them, so the query must run in the same transaction, or without WAL where
+     * all the queries share one connection.
+     */
+    private InValues fillInValues(Where[]... conditions) {
+        InValues inValues = new InValues();
+        SQLiteStatement statement = null;
+
+        try {
+            for (Where[] where : conditions) {
+                for (In in : mClauseHelper.getNotInlinedIns(where)) {
+                    if (inValues.ids.containsKey(in)) {
+                        continue;
+                    }
+
+                    if (statement == null) {
+                        mDatabase.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + ClauseHelper.IN_VALUES_TABLE
+                                + " (id INTEGER NOT NULL, value, PRIMARY KEY (id, value))");
+                        statement = mDatabase.compileStatement("INSERT OR IGNORE INTO " + ClauseHelper.IN_VALUES_TABLE + " VALUES (?,?)");
+                    }
+
+                    long id = mNextInValuesId.incrementAndGet();
+                    inValues.ids.put(in, id);
+                    for (Object value : in.getValues()) {
+                        statement.bindLong(1, id);
+                        bindArg(statement, 2, ClauseHelper.getBindArg(value));
+                        statement.executeInsert();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            clearInValues(inValues);
+            throw e;
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+
+        return inValues;
+    }
+
+    /**
+     * Run a select whose IN values are read from their temporary table. The cursor reads its rows lazily, so the
+     * values are kept until it is closed, instead of holding a transaction or copying the rows.
+     * With WAL, the cursor could read its rows from another connection which does not see the temporary table, so
+     * the whole result is then read in memory inside a transaction.
+     */
+    private Cursor queryWithInValues(String sql, Object[] args, Where[]... conditions) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && mDatabase.isWriteAheadLoggingEnabled()) {
+            beginTransaction();
+            InValues inValues = null;
+            try {
+                inValues = fillInValues(conditions);
+                Cursor cursor = CursorSnapshot.read(rawQueryWithArgs(sql, inValues.bind(args))).newCursor();
+                setTransactionSuccessful();
+                return cursor;
+            } finally {
+                if (inValues != null) {
+                    clearInValues(inValues);
+                }
+                endTransaction();
+            }
+        }
+
+        // one transaction for all the inserts, the values are committed before the query
+        final InValues inValues;
+        beginTransaction();
+        try {
+            inValues = fillInValues(conditions);
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+
+        Cursor cursor;
+        try {
+            cursor = rawQueryWithArgs(sql, inValues.bind(args));
+        } catch (RuntimeException e) {
+            clearInValues(inValues);
+            throw e;
+        }
+
+        return new CursorWrapper(cursor) {
+            private boolean mInValuesCleared;
+
+            @Override
+            public void close() {
+                super.close();
+
+                if (!mInValuesCleared) {
+                    mInValuesCleared = true;
+                    clearInValues(inValues);
+                }
+            }
+        };
+    }
+
+    private void clearInValues(InValues inValues) {
+        for (long id : inValues.ids.values()) {
+            mDatabase.execSQL("DELETE FROM " + ClauseHelper.IN_VALUES_TABLE + " WHERE id = " + id);
+        }
+    }
+
+    /**
+     * @return true if the current thread is inside a transaction, whose not yet committed data must not be cached
+     */
+    boolean isInTransaction() {
+        return !mTransactionState.get().successfulLevels.isEmpty();
+    }
+
+    private static String getSavepointName(int level) {
+        return "androidquery_" + level;
+    }
+
+    private void onTableChanged(@NonNull String tableName, @Nullable String uriSuffix, boolean notifyChange) {
+        QueryCache queryCache = getQueryCache();
+        if (queryCache != null) {
+            queryCache.invalidate(tableName);
+        }
+
+        // the entity cache is invalidated row by row by the queries, but a rollback can restore any row
+        if (queryCache != null || getEntityCache() != null) {
+            TransactionState state = mTransactionState.get();
+            if (!state.successfulLevels.isEmpty()) {
+                state.changedTables.add(tableName);
+            }
+        }
+
+        if (notifyChange) {
+            dispatchChange(getUri(tableName, uriSuffix));
+        }
+    }
+
+    /**
+     * Drop the cached results and rows of a table written without this provider, like through a BaseContentProvider
+     *
+     * @param tableName the table, in any case
+     */
+    void onExternalWrite(@NonNull String tableName) {
+        QueryCache queryCache = getQueryCache();
+        if (queryCache != null) {
+            queryCache.invalidate(tableName);
+        }
+
+        // the written rows are not known
+        EntityCache entityCache = getEntityCache();
+        if (entityCache != null) {
+            entityCache.invalidate(tableName);
+        }
+    }
+
+    private void dispatchChange(@NonNull Uri uri) {
+        TransactionState state = mTransactionState.get();
+        if (state.successfulLevels.isEmpty()) {
+            mNotificationDispatcher.notifyChange(uri);
+        } else {
+            state.pendingNotificationUris.add(uri);
+        }
+    }
+
+    /**
+     * Can be used to change the notifications coalescing window at runtime, or to flush them
+     */
+    public
+    @NonNull
+    NotificationDispatcher getNotificationDispatcher() {
+        return mNotificationDispatcher;
+    }
+
+    private boolean isSQLiteVersionAtLeast(int major, int minor) {
+        try {
+            String[] version = DatabaseUtils.stringForQuery(mDatabase, "SELECT sqlite_version()", null).split("\\.");
+            int versionMajor = Integer.parseInt(version[0]);
+            int versionMinor = Integer.parseInt(version[1]);
+            return versionMajor > major || (versionMajor == major && versionMinor >= minor);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     @NonNull
     SQLiteDatabase getDatabase() {
         return mDatabase;
@@ -20,6 +20,8 @@ import net.frju.androidquery.operation.condition.Between;
 import net.frju.androidquery.operation.condition.Compare;
 import net.frju.androidquery.operation.condition.In;
 import net.frju.androidquery.operation.condition.Or;
+import net.frju.androidquery.operation.condition.Param;
+import net.frju.androidquery.operation.condition.SubQuery;
 import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.join.Join;
 import net.frju.androidquery.operation.keyword.Limit;
@@ -27,7 +29,9 @@ import net.frju.androidquery.operation.keyword.OrderBy;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Samuel Kirton [sam@memtrip.com]
@@ -41,92 +45,126 @@ public class ClauseHelper {
     private static final String COMMA = ",";
     private static final String NOT = "NOT";
     private static final String IN = "IN";
+    private static final String EXISTS = "EXISTS";
     private static final String BETWEEN = "BETWEEN";
     private static final String AND = "AND";
     private static final String OR = "OR";
     private static final String ON = "ON";
     private static final String COLLATE = "COLLATE";
 
+    /**
+     * Temporary table holding the values of the IN operators which are not inlined
+     */
+    static final String IN_VALUES_TABLE = "temp.androidquery_in";
+
+    /**
+     * Maximum number of bind variables of a statement, SQLITE_MAX_VARIABLE_NUMBER of the older SQLite versions
+     */
+    static final int MAX_BIND_ARGS = 999;
+
+    /**
+     * Number of query shapes whose SQL is kept
+     */
+    private static final int SQL_CACHE_SIZE = 128;
+
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private final Map<QueryShape, String> mSqlCache = Collections.synchronizedMap(
+            new LinkedHashMap<QueryShape, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<QueryShape, String> eldest) {
+                    return size() > SQL_CACHE_SIZE;
+                }
+            });
+
+    private int mMaxInlinedInValues = Integer.MAX_VALUE;
+
     protected ClauseHelper() {
     }
 
+    /**
+     * @param maxInlinedInValues above that number of values, an IN operator reads them from IN_VALUES_TABLE
+     */
+    void setMaxInlinedInValues(int maxInlinedInValues) {
+        mMaxInlinedInValues = maxInlinedInValues;
+        mSqlCache.clear();
+    }
+
+    private boolean isInlined(In in) {
+        return in.getValues().length <= mMaxInlinedInValues;
+    }
+
+    /**
+     * @return the SQL of the where clause, with a ? placeholder for each of its arguments
+     */
     public String getCondition(Where[] where) {
-        StringBuilder clauseBuilder = new StringBuilder();
+        if (where == null || where.length == 0) {
+            return "";
+        }
 
-        if (where != null && where.length > 0) {
-            if (where.length == 1) {
-                clauseBuilder.append(getCondition(where[0]));
-            } else {
-                clauseBuilder.append(getCondition(Where.combinesWithAnd(where)));
+        QueryShape shape = QueryShape.of(null, null, null, where, null, null, null, null, mMaxInlinedInValues);
+        String sql = shape != null ? mSqlCache.get(shape) : null;
+        if (sql == null) {
+            StringBuilder clauseBuilder = new StringBuilder();
+            appendCondition(where.length == 1 ? where[0] : Where.combinesWithAnd(where), clauseBuilder);
+            sql = clauseBuilder.toString();
+
+            if (shape != null) {
+                mSqlCache.put(shape, sql);
             }
         }
 
-        return clauseBuilder.toString();
+        return sql;
     }
 
-    private String getCondition(Where where) {
-        StringBuilder clauseBuilder = new StringBuilder();
-
+    private void appendCondition(Where where, StringBuilder clauseBuilder) {
         if (where instanceof In) {
-            clauseBuilder.append(buildInCondition((In) where));
+            appendInCondition((In) where, clauseBuilder);
         } else if (where instanceof Between) {
-            clauseBuilder.append(buildBetweenCondition((Between) where));
+            appendBetweenCondition((Between) where, clauseBuilder);
         } else if (where instanceof Compare) {
-            clauseBuilder.append(buildCompareCondition((Compare) where));
+            appendCompareCondition((Compare) where, clauseBuilder);
+        } else if (where instanceof SubQuery) {
+            appendSubQueryCondition((SubQuery) where, clauseBuilder);
         } else if (where instanceof And) {
-            clauseBuilder.append(BRACKET_START);
-            And and = (And) where;
-            for (Where item : and.getCondition()) {
-                clauseBuilder.append(getCondition(item));
-                clauseBuilder.append(SPACE);
-                clauseBuilder.append(AND);
-                clauseBuilder.append(SPACE);
-            }
-
-            // remove the excess AND with its 2 spaces
-            clauseBuilder.delete(clauseBuilder.length() - 5, clauseBuilder.length());
-            clauseBuilder.append(BRACKET_END);
+            appendConditions(((And) where).getCondition(), AND, clauseBuilder);
         } else if (where instanceof Or) {
-            clauseBuilder.append(BRACKET_START);
-            Or or = (Or) where;
-            for (Where item : or.getCondition()) {
-                clauseBuilder.append(getCondition(item));
+            appendConditions(((Or) where).getCondition(), OR, clauseBuilder);
+        }
+    }
+
+    private void appendConditions(Where[] where, String operator, StringBuilder clauseBuilder) {
+        clauseBuilder.append(BRACKET_START);
+        for (int i = 0; i < where.length; i++) {
+            if (i > 0) {
                 clauseBuilder.append(SPACE);
-                clauseBuilder.append(OR);
+                clauseBuilder.append(operator);
                 clauseBuilder.append(SPACE);
             }
-
-            // remove the excess OR with its 2 spaces
-            clauseBuilder.delete(clauseBuilder.length() - 4, clauseBuilder.length());
-            clauseBuilder.append(BRACKET_END);
+            appendCondition(where[i], clauseBuilder);
         }
-
-        return clauseBuilder.toString();
+        clauseBuilder.append(BRACKET_END);
     }
 
-    private String buildCompareCondition(Compare where) {
-        StringBuilder stringBuilder = new StringBuilder();
-
+    private void appendCompareCondition(Compare where, StringBuilder stringBuilder) {
         stringBuilder.append(where.getColumn());
         stringBuilder.append(SPACE);
         stringBuilder.append(where.getOperator().toString());
         stringBuilder.append(SPACE);
         if (where.getValue() == null) {
             stringBuilder.append(NULL);
+        } else if (where.getValue() instanceof Where.Field) {
+            // compared to another column, the one of an outer query for instance
+            stringBuilder.append(((Where.Field) where.getValue()).getFieldDbName());
         } else {
             stringBuilder.append(VALUE);
         }
-
-        return stringBuilder.toString();
     }
 
-    private String buildInCondition(In in) {
-        String row = in.getColumn();
+    private void appendInCondition(In in, StringBuilder stringBuilder) {
         int length = in.getValues().length;
 
-        StringBuilder stringBuilder = new StringBuilder();
-
-        stringBuilder.append(row);
+        stringBuilder.append(in.getColumn());
         if (in.hasNot()) {
             stringBuilder.append(SPACE);
             stringBuilder.append(NOT);
@@ -137,26 +175,42 @@ public class ClauseHelper {
 
         stringBuilder.append(BRACKET_START);
 
-        if (length > 0) {
+        if (!isInlined(in)) {
+            // always the same SQL whatever the number of values, and no bind variable limit
+            stringBuilder.append("SELECT value FROM ");
+            stringBuilder.append(IN_VALUES_TABLE);
+            stringBuilder.append(" WHERE id = ");
+            stringBuilder.append(VALUE);
+        } else {
             for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    stringBuilder.append(COMMA);
+                }
                 stringBuilder.append(VALUE);
-                stringBuilder.append(COMMA);
             }
-
-            stringBuilder.delete(stringBuilder.length() - 1, stringBuilder.length());
         }
 
         stringBuilder.append(BRACKET_END);
-
-        return stringBuilder.toString();
     }
 
-    private String buildBetweenCondition(Between between) {
-        String row = between.getColumn();
-
-        StringBuilder stringBuilder = new StringBuilder();
+    private void appendSubQueryCondition(SubQuery subQuery, StringBuilder stringBuilder) {
+        if (subQuery.getColumn() != null) {
+            stringBuilder.append(subQuery.getColumn());
+            stringBuilder.append(SPACE);
+        }
+        if (subQuery.hasNot()) {
+            stringBuilder.append(NOT);
+            stringBuilder.append(SPACE);
+        }
+        stringBuilder.append(subQuery.getColumn() != null ? IN : EXISTS);
+        stringBuilder.append(SPACE);
+        stringBuilder.append(BRACKET_START);
+        stringBuilder.append(subQuery.getSelect().toSql());
+        stringBuilder.append(BRACKET_END);
+    }
 
-        stringBuilder.append(row);
+    private void appendBetweenCondition(Between between, StringBuilder stringBuilder) {
+        stringBuilder.append(between.getColumn());
         if (between.hasNot()) {
             stringBuilder.append(SPACE);
             stringBuilder.append(NOT);
@@ -167,82 +221,219 @@ public class ClauseHelper {
         stringBuilder.append(VALUE);
         stringBuilder.append(AND);
         stringBuilder.append(VALUE);
-
-        return stringBuilder.toString();
     }
 
+    /**
+     * @return the arguments of the where clause as strings, for the ContentProvider queries
+     */
     public String[] getConditionArgs(Where[] where) {
-        List<String> args = new ArrayList<>();
+        Object[] values = getConditionValues(where);
+        String[] args = new String[values.length];
+
+        for (int i = 0; i < args.length; i++) {
+            Object value = values[i];
+            if (value instanceof Param) {
+                throw new IllegalStateException("The parameter " + ((Param) value).getName() + " can only be used in a prepared query");
+            } else if (value instanceof Boolean) {
+                args[i] = (Boolean) value ? "1" : "0";
+            } else {
+                args[i] = String.valueOf(value);
+            }
+        }
+
+        return args;
+    }
+
+    /**
+     * @return the arguments of the where clause as Long, Double, String, byte[] or null, to bind them with their type
+     */
+    public Object[] getConditionBindArgs(Where[] where) {
+        Object[] args = getConditionValues(where);
+
+        for (int i = 0; i < args.length; i++) {
+            args[i] = getBindArg(args[i]);
+        }
+
+        return args;
+    }
+
+    /**
+     * @return the value to bind, so that a number is not compared to a TEXT value. A Param is kept to be bound later.
+     */
+    static Object getBindArg(Object value) {
+        if (value == null || value instanceof Long || value instanceof Double || value instanceof String || value instanceof byte[]
+                || value instanceof Param || value instanceof In) {
+            return value;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : 0L;
+        } else if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else {
+            return String.valueOf(value);
+        }
+    }
 
+    /**
+     * @return the number of arguments of the where clause, without building them
+     */
+    int getConditionBindArgsCount(Where[] where) {
+        int count = 0;
         if (where != null) {
             for (Where item : where) {
-                args.addAll(getConditionArgs(item));
+                count += countConditionValues(item);
             }
         }
+        return count;
+    }
+
+    /**
+     * @return the raw values of the arguments, in an array allocated once after counting them
+     */
+    private Object[] getConditionValues(Where[] where) {
+        if (where == null || where.length == 0) {
+            return EMPTY_VALUES;
+        }
 
-        return args.toArray(new String[args.size()]);
+        int count = 0;
+        for (Where item : where) {
+            count += countConditionValues(item);
+        }
+
+        Object[] values = new Object[count];
+        int index = 0;
+        for (Where item : where) {
+            index = addConditionValues(item, values, index);
+        }
+
+        return values;
     }
 
-    private List<String> getConditionArgs(Where where) {
-        List<String> args = new ArrayList<>();
+    private int countConditionValues(Where where) {
+        int count = 0;
 
         if (where instanceof In) {
-            args.addAll(buildInArgs((In) where));
+            count = isInlined((In) where) ? ((In) where).getValues().length : 1;
         } else if (where instanceof Between) {
-            args.addAll(buildBetweenArgs((Between) where));
+            count = 2;
         } else if (where instanceof Compare) {
-            String arg = buildCompareArgs((Compare) where);
-            if (arg != null) {
-                args.add(arg);
+            count = hasArg((Compare) where) ? 1 : 0;
+        } else if (where instanceof SubQuery) {
+            count = ((SubQuery) where).getSelect().getArgs().length;
+        } else if (where instanceof And) {
+            for (Where item : ((And) where).getCondition()) {
+                count += countConditionValues(item);
             }
+        } else if (where instanceof Or) {
+            for (Where item : ((Or) where).getCondition()) {
+                count += countConditionValues(item);
+            }
+        }
+
+        return count;
+    }
+
+    private int addConditionValues(Where where, Object[] values, int index) {
+        if (where instanceof In) {
+            In in = (In) where;
+            if (!isInlined(in)) {
+                // replaced by the id of its values once they are in IN_VALUES_TABLE
+                values[index++] = in;
+            } else {
+                System.arraycopy(in.getValues(), 0, values, index, in.getValues().length);
+                index += in.getValues().length;
+            }
+        } else if (where instanceof Between) {
+            values[index++] = ((Between) where).getValue1();
+            values[index++] = ((Between) where).getValue2();
+        } else if (where instanceof Compare) {
+            if (hasArg((Compare) where)) {
+                values[index++] = ((Compare) where).getValue();
+            }
+        } else if (where instanceof SubQuery) {
+            Object[] args = ((SubQuery) where).getSelect().getArgs();
+            System.arraycopy(args, 0, values, index, args.length);
+            index += args.length;
         } else if (where instanceof And) {
-            And and = (And) where;
-            for (Where item : and.getCondition()) {
-                args.addAll(getConditionArgs(item));
+            for (Where item : ((And) where).getCondition()) {
+                index = addConditionValues(item, values, index);
             }
         } else if (where instanceof Or) {
-            Or or = (Or) where;
-            for (Where item : or.getCondition()) {
-                args.addAll(getConditionArgs(item));
+            for (Where item : ((Or) where).getCondition()) {
+                index = addConditionValues(item, values, index);
             }
         }
 
-        return args;
+        return index;
     }
 
-    private String buildCompareArgs(Compare where) {
-        if (where.getValue() == null) {
-            return null;
-        } else {
-            String value = String.valueOf(where.getValue());
+    /**
+     * @return false when compared with IS NULL or to another column
+     */
+    private static boolean hasArg(Compare compare) {
+        Object value = compare.getValue();
+        return value != null && !(value instanceof Where.Field);
+    }
+
+    /**
+     * @return the IN operators of the where clause whose values must be put in IN_VALUES_TABLE
+     */
+    public List<In> getNotInlinedIns(Where[] where) {
+        List<In> ins = new ArrayList<>();
 
-            if (value.equals("true")) {
-                return "1";
-            } else if (value.equals("false")) {
-                return "0";
+        if (where != null) {
+            for (Where item : where) {
+                addNotInlinedIns(item, ins);
             }
+        }
 
-            return value;
+        return ins;
+    }
+
+    private void addNotInlinedIns(Where where, List<In> ins) {
+        if (where instanceof In) {
+            if (!isInlined((In) where)) {
+                ins.add((In) where);
+            }
+        } else if (where instanceof And) {
+            for (Where item : ((And) where).getCondition()) {
+                addNotInlinedIns(item, ins);
+            }
+        } else if (where instanceof Or) {
+            for (Where item : ((Or) where).getCondition()) {
+                addNotInlinedIns(item, ins);
+            }
         }
     }
 
-    private List<String> buildBetweenArgs(Between between) {
-        List<String> args = new ArrayList<>();
+    /**
+     * @return the tables read by the sub-queries of the where clause
+     */
+    public List<String> getSubQueryTables(Where[] where) {
+        List<String> tables = new ArrayList<>();
 
-        args.add(String.valueOf(between.getValue1()));
-        args.add(String.valueOf(between.getValue2()));
+        if (where != null) {
+            for (Where item : where) {
+                addSubQueryTables(item, tables);
+            }
+        }
 
-        return args;
+        return tables;
     }
 
-    private List<String> buildInArgs(In in) {
-        List<String> args = new ArrayList<>();
-
-        for (int i = 0; i < in.getValues().length; i++) {
-            args.add(String.valueOf(in.getValues()[i]));
+    private void addSubQueryTables(Where where, List<String> tables) {
+        if (where instanceof SubQuery) {
+            Collections.addAll(tables, ((SubQuery) where).getSelect().getTables());
+        } else if (where instanceof And) {
+            for (Where item : ((And) where).getCondition()) {
+                addSubQueryTables(item, tables);
+            }
+        } else if (where instanceof Or) {
+            for (Where item : ((Or) where).getCondition()) {
+                addSubQueryTables(item, tables);
+            }
         }
-
-        return args;
     }
 
     public String getOrderBy(OrderBy[] orderByArray) {
@@ -325,6 +516,11 @@ public class ClauseHelper {
 
     public String buildJoinQuery(String[] tableColumns, Join[] joins, String tableName, Where[] where,
                                  OrderBy[] orderBy, Limit limit, Resolver resolver) {
+        return buildJoinQuery(tableColumns, joins, tableName, where, null, null, orderBy, limit, resolver);
+    }
+
+    private String buildJoinQuery(String[] tableColumns, Join[] joins, String tableName, Where[] where, String groupBy,
+                                  Where[] having, OrderBy[] orderBy, Limit limit, Resolver resolver) {
 
         String[] joinColumns = getJoinColumns(joins, resolver);
 
@@ -352,6 +548,18 @@ public class ClauseHelper {
             clauseString = "WHERE " + clauseString;
         }
 
+        String groupByString = "";
+        String havingString = getCondition(having);
+        if (groupBy != null && groupBy.length() > 0) {
+            groupByString = "GROUP BY " + groupBy;
+
+            if (havingString.length() > 0) {
+                groupByString += " HAVING " + havingString;
+            }
+        } else if (havingString.length() > 0) {
+            throw new IllegalArgumentException("HAVING clauses are only permitted when using a groupBy clause");
+        }
+
         String orderByString = getOrderBy(orderBy);
         if (orderByString != null && orderByString.length() > 0) {
             orderByString = "ORDER BY " + orderByString;
@@ -369,6 +577,8 @@ public class ClauseHelper {
                 .append(" ")
                 .append(clauseString)
                 .append(" ")
+                .append(groupByString)
+                .append(" ")
                 .append(orderByString)
                 .append(" ")
                 .append(limitString);
@@ -376,6 +586,83 @@ public class ClauseHelper {
         return stringBuilder.toString();
     }
 
+    /**
+     * Same as buildJoinQuery() with joins and buildSelectQuery() without, but the SQL is built only once per query shape:
+     * the next queries which only differ by their argument values reuse it.
+     *
+     * @return the SQL of the select, with a ? placeholder for each of its arguments
+     */
+    public String getSelectQuery(String[] columns, String tableName, Join[] joins, Where[] where, String groupBy,
+                                 Where[] having, OrderBy[] orderBy, Limit limit, Resolver resolver) {
+        QueryShape shape = QueryShape.of(tableName, columns, joins, where, groupBy, having, orderBy, limit, mMaxInlinedInValues);
+        String sql = shape != null ? mSqlCache.get(shape) : null;
+        if (sql == null) {
+            if (joins != null && joins.length > 0) {
+                sql = buildJoinQuery(columns, joins, tableName, where, groupBy, having, orderBy, limit, resolver);
+            } else {
+                sql = buildSelectQuery(columns, tableName, null, where, groupBy, having, orderBy, limit, resolver);
+            }
+
+            if (shape != null) {
+                mSqlCache.put(shape, sql);
+            }
+        }
+
+        return sql;
+    }
+
+    public String buildSelectQuery(String[] columns, String tableName, Join[] joins, Where[] where,
+                                   OrderBy[] orderBy, Limit limit, Resolver resolver) {
+        return buildSelectQuery(columns, tableName, joins, where, null, null, orderBy, limit, resolver);
+    }
+
+    private String buildSelectQuery(String[] columns, String tableName, Join[] joins, Where[] where, String groupBy,
+                                    Where[] having, OrderBy[] orderBy, Limit limit, Resolver resolver) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        stringBuilder.append("SELECT ");
+        for (String column : columns) {
+            stringBuilder.append(column).append(COMMA);
+        }
+
+        // remove the trailing comma
+        stringBuilder.delete(stringBuilder.length() - 1, stringBuilder.length());
+
+        stringBuilder.append(" FROM ").append(tableName);
+
+        if (joins != null && joins.length > 0) {
+            stringBuilder.append(getJoinStatement(joins, resolver));
+        }
+
+        String clauseString = getCondition(where);
+        if (clauseString.length() > 0) {
+            stringBuilder.append(" WHERE ").append(clauseString);
+        }
+
+        String havingString = getCondition(having);
+        if (groupBy != null && groupBy.length() > 0) {
+            stringBuilder.append(" GROUP BY ").append(groupBy);
+
+            if (havingString.length() > 0) {
+                stringBuilder.append(" HAVING ").append(havingString);
+            }
+        } else if (havingString.length() > 0) {
+            throw new IllegalArgumentException("HAVING clauses are only permitted when using a groupBy clause");
+        }
+
+        String orderByString = getOrderBy(orderBy);
+        if (orderByString.length() > 0) {
+            stringBuilder.append(" ORDER BY ").append(orderByString);
+        }
+
+        String limitString = getLimit(limit);
+        if (limitString.length() > 0) {
+            stringBuilder.append(" LIMIT ").append(limitString);
+        }
+
+        return stringBuilder.toString();
+    }
+
     private String[] getJoinColumns(Join[] joins, Resolver resolver) {
         List<String> joinColumns = new ArrayList<>();
 
@@ -0,0 +1,88 @@
+package net.frju.androidquery.database;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the position of each cursor column into the index of a mapped column only once per projection,
+ * so that generated descriptors can map rows with an int switch instead of comparing column names.
+ * A few projections are kept, since a model is usually read with its full projection and some partial or joined ones.
+ */
+public class ColumnIndexCache {
+
+    public static final int NOT_MAPPED = -1;
+
+    private static final int MAX_PROJECTIONS = 16;
+
+    private static class Entry {
+        final String[] columnNames;
+        final int[] mappedIndexes;
+
+        Entry(String[] columnNames, int[] mappedIndexes) {
+            this.columnNames = columnNames;
+            this.mappedIndexes = mappedIndexes;
+        }
+    }
+
+    private final String[] mMappedColumnNames;
+    private final ConcurrentHashMap<List<String>, int[]> mProjections = new ConcurrentHashMap<>();
+    // the last used projection
+    private volatile Entry mEntry;
+
+    public ColumnIndexCache(@NonNull String... mappedColumnNames) {
+        mMappedColumnNames = mappedColumnNames;
+    }
+
+    /**
+     * Get, for each column of the cursor, the index of the matching mapped column or NOT_MAPPED
+     *
+     * @param cursor the cursor to read from
+     * @return an array of the size of the cursor columns
+     */
+    public
+    @NonNull
+    int[] getMappedIndexes(@NonNull Cursor cursor) {
+        String[] columnNames = cursor.getColumnNames();
+
+        Entry entry = mEntry;
+        // Cursors usually always return the same array instance, so the identity check is the common path
+        if (entry == null || (entry.columnNames != columnNames && !Arrays.equals(entry.columnNames, columnNames))) {
+            List<String> projection = Arrays.asList(columnNames);
+            int[] mappedIndexes = mProjections.get(projection);
+            if (mappedIndexes == null) {
+                if (mProjections.size() >= MAX_PROJECTIONS) {
+                    // the projections are built by the app, so this only happens with generated ones
+                    mProjections.clear();
+                }
+                mappedIndexes = resolve(columnNames);
+                mProjections.put(Arrays.asList(columnNames.clone()), mappedIndexes);
+            }
+
+            entry = new Entry(columnNames, mappedIndexes);
+            mEntry = entry;
+        }
+
+        return entry.mappedIndexes;
+    }
+
+    private int[] resolve(String[] columnNames) {
+        int[] mappedIndexes = new int[columnNames.length];
+
+        for (int x = 0; x < columnNames.length; x++) {
+            mappedIndexes[x] = NOT_MAPPED;
+
+            for (int i = 0; i < mMappedColumnNames.length; i++) {
+                if (mMappedColumnNames[i].equals(columnNames[x])) {
+                    mappedIndexes[x] = i;
+                    break;
+                }
+            }
+        }
+
+        return mappedIndexes;
+    }
+}
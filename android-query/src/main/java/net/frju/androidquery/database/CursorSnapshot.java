@@ -0,0 +1,274 @@
+package net.frju.androidquery.database;
+
+import android.database.AbstractCursor;
+import android.database.Cursor;
+import android.database.CursorIndexOutOfBoundsException;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable copy of the rows of a cursor, shared by all the cursors opened on it
+ */
+final class CursorSnapshot {
+
+    private final String[] mColumnNames;
+    private final Object[][] mRows;
+
+    CursorSnapshot(@NonNull String[] columnNames, @NonNull List<Object[]> rows) {
+        mColumnNames = columnNames;
+        mRows = rows.toArray(new Object[rows.size()][]);
+    }
+
+    /**
+     * Read all the rows of the cursor, then close it
+     */
+    static
+    @NonNull
+    CursorSnapshot read(@NonNull Cursor cursor) {
+        String[] columnNames = cursor.getColumnNames();
+        List<Object[]> rows = new ArrayList<>();
+
+        try {
+            while (cursor.moveToNext()) {
+                rows.add(readRow(cursor, columnNames.length));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return new CursorSnapshot(columnNames, rows);
+    }
+
+    /**
+     * Convert a TEXT value like SQLite: its longest integer prefix, after the leading spaces, or 0 if there is none
+     */
+    static long textToLong(@NonNull String text) {
+        int length = text.length();
+        int i = skipSpaces(text, 0);
+        boolean negative = false;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long value = 0;
+        for (; i < length && isDigit(text.charAt(i)); i++) {
+            int digit = text.charAt(i) - '0';
+            // out of range values are clamped, like SQLite does
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return negative ? Long.MIN_VALUE : Long.MAX_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Convert a TEXT value like SQLite: its longest real number prefix, after the leading spaces, or 0 if there is none
+     */
+    static double textToDouble(@NonNull String text) {
+        int length = text.length();
+        int start = skipSpaces(text, 0);
+        int i = start;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+
+        int digits = 0;
+        for (; i < length && isDigit(text.charAt(i)); i++) {
+            digits++;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            i++;
+            for (; i < length && isDigit(text.charAt(i)); i++) {
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return 0;
+        }
+
+        int end = i;
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            if (i < length && isDigit(text.charAt(i))) {
+                while (i < length && isDigit(text.charAt(i))) {
+                    i++;
+                }
+                end = i;
+            }
+        }
+
+        return Double.parseDouble(text.substring(start, end));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipSpaces(String text, int start) {
+        int i = start;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the values of the current row of the cursor, as Long, Double, String, byte[] or null
+     */
+    static
+    @NonNull
+    Object[] readRow(@NonNull Cursor cursor, int columnCount) {
+        Object[] row = new Object[columnCount];
+        for (int x = 0; x < columnCount; x++) {
+            switch (cursor.getType(x)) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                    row[x] = cursor.getLong(x);
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    row[x] = cursor.getDouble(x);
+                    break;
+                case Cursor.FIELD_TYPE_STRING:
+                    row[x] = cursor.getString(x);
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    row[x] = cursor.getBlob(x);
+                    break;
+            }
+        }
+        return row;
+    }
+
+    int getCount() {
+        return mRows.length;
+    }
+
+    /**
+     * @return the value of that column in the row, or null if the column is not part of the snapshot
+     */
+    @Nullable
+    Object getValue(int row, @NonNull String column) {
+        for (int x = 0; x < mColumnNames.length; x++) {
+            if (mColumnNames[x].equals(column)) {
+                return mRows[row][x];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a new cursor on the rows, the rows themselves are not copied
+     */
+    @NonNull
+    Cursor newCursor() {
+        return new SnapshotCursor(this);
+    }
+
+    private static class SnapshotCursor extends AbstractCursor {
+        private final CursorSnapshot mSnapshot;
+
+        SnapshotCursor(CursorSnapshot snapshot) {
+            mSnapshot = snapshot;
+        }
+
+        @Override
+        public int getCount() {
+            return mSnapshot.mRows.length;
+        }
+
+        @Override
+        public String[] getColumnNames() {
+            return mSnapshot.mColumnNames;
+        }
+
+        @Override
+        public int getType(int column) {
+            Object value = get(column);
+            if (value == null) {
+                return Cursor.FIELD_TYPE_NULL;
+            } else if (value instanceof Long) {
+                return Cursor.FIELD_TYPE_INTEGER;
+            } else if (value instanceof Double) {
+                return Cursor.FIELD_TYPE_FLOAT;
+            } else if (value instanceof byte[]) {
+                return Cursor.FIELD_TYPE_BLOB;
+            }
+            return Cursor.FIELD_TYPE_STRING;
+        }
+
+        @Override
+        public String getString(int column) {
+            Object value = get(column);
+            return value != null ? value.toString() : null;
+        }
+
+        @Override
+        public short getShort(int column) {
+            return (short) getLong(column);
+        }
+
+        @Override
+        public int getInt(int column) {
+            return (int) getLong(column);
+        }
+
+        @Override
+        public long getLong(int column) {
+            Object value = get(column);
+            if (value == null) {
+                return 0;
+            } else if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            return textToLong(value.toString());
+        }
+
+        @Override
+        public float getFloat(int column) {
+            return (float) getDouble(column);
+        }
+
+        @Override
+        public double getDouble(int column) {
+            Object value = get(column);
+            if (value == null) {
+                return 0;
+            } else if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            return textToDouble(value.toString());
+        }
+
+        @Override
+        public byte[] getBlob(int column) {
+            // the row is shared by all the cursors of the snapshot
+            byte[] value = (byte[]) get(column);
+            return value != null ? value.clone() : null;
+        }
+
+        @Override
+        public boolean isNull(int column) {
+            return get(column) == null;
+        }
+
+        private Object get(int column) {
+            if (column < 0 || column >= mSnapshot.mColumnNames.length) {
+                throw new CursorIndexOutOfBoundsException("Requested column: " + column + ", # of columns: " + mSnapshot.mColumnNames.length);
+            }
+            if (mPos < 0) {
+                throw new CursorIndexOutOfBoundsException("Before first row.");
+            }
+            if (mPos >= mSnapshot.mRows.length) {
+                throw new CursorIndexOutOfBoundsException("After last row.");
+            }
+            return mSnapshot.mRows[mPos][column];
+        }
+    }
+}
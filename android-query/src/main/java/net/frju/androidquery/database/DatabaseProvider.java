@@ -21,22 +21,72 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.text.TextUtils;
 
 import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.join.Join;
 import net.frju.androidquery.operation.keyword.Limit;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+
 /**
  * @author Samuel Kirton [sam@memtrip.com]
  */
 public abstract class DatabaseProvider {
     protected final Context mContext;
     protected final ClauseHelper mClauseHelper;
+    private final QueryCache mQueryCache;
+    private final EntityCache mEntityCache;
 
     protected DatabaseProvider(@NonNull Context context) {
         mContext = context;
         mClauseHelper = new ClauseHelper();
+
+        int queryCacheSize = getQueryCacheSize();
+        mQueryCache = queryCacheSize > 0 ? new QueryCache(queryCacheSize) : null;
+
+        int entityCacheSize = getEntityCacheSize();
+        mEntityCache = entityCacheSize > 0 ? new EntityCache(entityCacheSize) : null;
+    }
+
+    /**
+     * Override it to enable the query result cache. Only local providers use it, since they see all the writes
+     * (including the ones of their BaseContentProvider).
+     *
+     * @return the memory budget of the query result cache in bytes, 0 to disable it (default)
+     */
+    protected int getQueryCacheSize() {
+        return 0;
+    }
+
+    /**
+     * @return the query result cache, to read its hit/miss counters, or null if disabled
+     */
+    public
+    @Nullable
+    QueryCache getQueryCache() {
+        return mQueryCache;
+    }
+
+    /**
+     * Override it to enable the primary key lookup cache. Only local providers use it, since they see all the writes.
+     *
+     * @return the maximum number of rows kept in the primary key lookup cache, 0 to disable it (default)
+     */
+    protected int getEntityCacheSize() {
+        return 0;
+    }
+
+    /**
+     * @return the primary key lookup cache, to read its hit/miss counters, or null if disabled
+     */
+    public
+    @Nullable
+    EntityCache getEntityCache() {
+        return mEntityCache;
     }
 
     protected abstract
@@ -55,23 +105,154 @@ public abstract class DatabaseProvider {
     @NonNull
     Uri getUri(@NonNull String modelDbName, @Nullable String uriSuffix);
 
-    abstract protected long insert(@NonNull String tableName, @NonNull ContentValues valuesArray, @NonNull Query.ConflictResolution conflictResolution);
+    abstract protected long insert(@NonNull String tableName, @NonNull ContentValues valuesArray, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange);
 
-    abstract protected int bulkInsert(@NonNull String tableName, @NonNull ContentValues[] valuesArray, @NonNull Query.ConflictResolution conflictResolution);
+    abstract protected int bulkInsert(@NonNull String tableName, @NonNull ContentValues[] valuesArray, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange);
+
+    /**
+     * Insert models into the table described by dbModelDescriptor, and set their new id when possible.
+     * The default implementation goes through ContentValues, local providers bind the models directly.
+     *
+     * @param dbModelDescriptor  the description of the models table
+     * @param models             the models to insert
+     * @param conflictResolution the conflict resolution algorithm
+     * @param notifyChange       false to not notify the observers of the table
+     * @return the number of inserted models
+     */
+    protected int bulkInsert(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull Object[] models, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
+        if (models.length == 1) {
+            long newId = insert(dbModelDescriptor.getTableDbName(), dbModelDescriptor.getContentValues(models[0]), conflictResolution, notifyChange);
+            if (newId != -1) {
+                dbModelDescriptor.setIdToModel(models[0], newId);
+                return 1;
+            } else {
+                return 0;
+            }
+        }
+
+        ContentValues[] valuesArray = new ContentValues[models.length];
+        for (int i = 0; i < models.length; i++) {
+            valuesArray[i] = dbModelDescriptor.getContentValues(models[i]);
+        }
+
+        return bulkInsert(dbModelDescriptor.getTableDbName(), valuesArray, conflictResolution, notifyChange);
+    }
 
-    abstract protected int bulkUpdate(@NonNull String tableName, @Nullable String uriSuffix, @NonNull ContentValues[] valuesArray, @NonNull Where[][] conditionsArray, @NonNull Query.ConflictResolution conflictResolution);
+    /**
+     * Update models by primary key, and insert the ones which do not exist yet.
+     * The default implementation does one update per model, local providers do it in one transaction.
+     * ModelListener.onPreUpdate() is called before updating a model, and onPreInsert() before inserting it
+     * (a model not found by its update gets both, since the update is tried first).
+     *
+     * @param dbModelDescriptor  the description of the models table
+     * @param models             the models to save
+     * @param conflictResolution the conflict resolution algorithm
+     * @param notifyChange       false to not notify the observers of the table
+     * @return the number of inserted or updated models
+     */
+    protected int save(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull Object[] models, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange) {
+        int nb = 0;
+
+        String primaryKeyName = dbModelDescriptor.getPrimaryKeyDbName();
+        ArrayList<Object> modelsToInsert = new ArrayList<>();
+        for (Object model : models) {
+            if (isNewModel(dbModelDescriptor, model)) {
+                modelsToInsert.add(model);
+            } else {
+                if (TextUtils.isEmpty(primaryKeyName)) {
+                    throw new IllegalStateException("save require a primary key");
+                }
+
+                if (model instanceof ModelListener) {
+                    ((ModelListener) model).onPreUpdate();
+                }
+
+                Object primaryKeyValue = dbModelDescriptor.getPrimaryKeyValue(model);
+                if (bulkUpdate(
+                        dbModelDescriptor.getTableDbName(),
+                        primaryKeyValue != null ? Uri.encode(primaryKeyValue.toString()) : null,
+                        new ContentValues[]{dbModelDescriptor.getContentValues(model)},
+                        new Where[][]{new Where[]{Where.field(primaryKeyName).isEqualTo(primaryKeyValue)}},
+                        conflictResolution,
+                        notifyChange) > 0) {
+                    nb++;
+                } else {
+                    modelsToInsert.add(model);
+                }
+            }
+        }
+
+        if (modelsToInsert.size() > 0) {
+            for (Object model : modelsToInsert) {
+                if (model instanceof ModelListener) {
+                    ((ModelListener) model).onPreInsert();
+                }
+            }
+            nb += bulkInsert(dbModelDescriptor, modelsToInsert.toArray(), conflictResolution, notifyChange);
+        }
+
+        return nb;
+    }
+
+    /**
+     * Execute the callable inside a transaction when the provider supports it.
+     * The default implementation simply calls it, local providers run it in a SQLite transaction.
+     *
+     * @param callable the queries to execute
+     * @return the result of the callable
+     * @throws Exception the exception thrown by the callable
+     */
+    public <T> T runInTransaction(@NonNull Callable<T> callable) throws Exception {
+        return callable.call();
+    }
+
+    abstract protected int bulkUpdate(@NonNull String tableName, @Nullable String uriSuffix, @NonNull ContentValues[] valuesArray, @NonNull Where[][] conditionsArray, @NonNull Query.ConflictResolution conflictResolution, boolean notifyChange);
 
     abstract protected Cursor query(@NonNull String tableName, @NonNull String[] columns, @Nullable Where[] where, @Nullable Join[] joins,
-                                    @Nullable String groupBy, @Nullable String having, @Nullable OrderBy[] orderBy, @Nullable Limit limit);
+                                    @Nullable String groupBy, @Nullable Where[] having, @Nullable OrderBy[] orderBy, @Nullable Limit limit);
 
-    abstract protected int delete(@NonNull String tableName, @Nullable String uriSuffix, @Nullable Where[] where);
+    abstract protected int delete(@NonNull String tableName, @Nullable String uriSuffix, @Nullable Where[] where, boolean notifyChange);
 
     abstract protected long count(@NonNull String tableName, @Nullable Where[] where);
 
+    abstract protected boolean exists(@NonNull DbModelDescriptor dbModelDescriptor, @Nullable Where[] where);
+
     abstract protected
     @Nullable
     Cursor rawQuery(@NonNull String sql);
 
+    /**
+     * @return the tables read by a query, including the joined ones and the ones of the sub-queries
+     */
+    @NonNull
+    String[] getTables(@NonNull String tableName, @Nullable Join[] joins, @Nullable Where[]... conditions) {
+        HashSet<String> tables = new HashSet<>();
+        tables.add(tableName);
+        if (joins != null) {
+            for (Join join : joins) {
+                tables.add(getResolver().getDbModelDescriptor(join.getInitialTable()).getTableDbName());
+                tables.add(getResolver().getDbModelDescriptor(join.getAddedTable()).getTableDbName());
+            }
+        }
+        for (Where[] where : conditions) {
+            tables.addAll(mClauseHelper.getSubQueryTables(where));
+        }
+        return tables.toArray(new String[tables.size()]);
+    }
+
+    /**
+     * @return true if the model primary key is auto-incremented and not set yet, so it can only be inserted
+     */
+    static boolean isNewModel(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull Object model) {
+        if (dbModelDescriptor.isPrimaryKeyAutoIncrement()) {
+            Object primaryKeyValue = dbModelDescriptor.getPrimaryKeyValue(model);
+            // first valid autoincrement id is always >= 1
+            return primaryKeyValue == null || Long.parseLong(primaryKeyValue.toString()) <= 0; // should be a short, int or long
+        }
+
+        return false;
+    }
+
     static
     @NonNull
     String firstToUpperCase(@NonNull String value) {
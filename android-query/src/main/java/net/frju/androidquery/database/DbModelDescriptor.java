@@ -17,6 +17,7 @@ package net.frju.androidquery.database;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
@@ -53,6 +54,53 @@ public interface DbModelDescriptor {
     @NonNull
     ContentValues getContentValues(@NonNull Object model);
 
+    /**
+     * @param conflictResolution the conflict resolution algorithm to use
+     * @return an INSERT statement with one bind argument per column returned by getContentValues
+     */
+    @NonNull
+    String getInsertQuery(@NonNull Query.ConflictResolution conflictResolution);
+
+    /**
+     * Bind the model values to a statement compiled from getInsertQuery
+     *
+     * @param statement the compiled statement
+     * @param model     the model to insert
+     */
+    void bindTo(@NonNull SQLiteStatement statement, @NonNull Object model);
+
+    /**
+     * @param conflictResolution the conflict resolution algorithm to use
+     * @return an INSERT ... ON CONFLICT(primary key) DO UPDATE statement, or null without primary key.
+     * Its arguments are the ones of bindTo, followed by the ones of bindPrimaryKeyTo if the primary key is auto-incremented.
+     */
+    @Nullable
+    String getUpsertQuery(@NonNull Query.ConflictResolution conflictResolution);
+
+    /**
+     * @param conflictResolution the conflict resolution algorithm to use
+     * @return an INSERT statement keeping the model primary key even if it is auto-incremented.
+     * Its arguments are the ones of bindTo, followed by the ones of bindPrimaryKeyTo if the primary key is auto-incremented.
+     */
+    @NonNull
+    String getInsertWithPrimaryKeyQuery(@NonNull Query.ConflictResolution conflictResolution);
+
+    /**
+     * @param conflictResolution the conflict resolution algorithm to use
+     * @return an UPDATE statement filtered on the primary key, or null without primary key.
+     * Its arguments are the ones of bindTo, followed by the ones of bindPrimaryKeyTo.
+     */
+    @Nullable
+    String getUpdateQuery(@NonNull Query.ConflictResolution conflictResolution);
+
+    /**
+     * Bind the model primary key to a statement compiled from getUpsertQuery, getInsertWithPrimaryKeyQuery or getUpdateQuery, right after the bindTo arguments
+     *
+     * @param statement the compiled statement
+     * @param model     the model to save
+     */
+    void bindPrimaryKeyTo(@NonNull SQLiteStatement statement, @NonNull Object model);
+
     @Nullable
     Object getPrimaryKeyValue(@NonNull Object model);
 
@@ -61,6 +109,27 @@ public interface DbModelDescriptor {
     @Nullable
     <T> T getSingleResult(@Nullable Cursor cursor);
 
+    /**
+     * Same as getSingleResult(cursor), but the model and its joined models are replaced by the instances
+     * already known by the identity map, if any
+     *
+     * @param cursor      the cursor, positioned on the row to read
+     * @param identityMap the identity map, or null to always create new instances
+     */
+    @Nullable
+    <T> T getSingleResult(@Nullable Cursor cursor, @Nullable IdentityMap identityMap);
+
     @NonNull
     <T> T[] getArrayResult(@Nullable Cursor cursor);
+
+    @NonNull
+    <T> T[] getArrayResult(@Nullable Cursor cursor, @Nullable IdentityMap identityMap);
+
+    /**
+     * Fill the @Relation fields of the models, with one query per relation for all of them
+     *
+     * @param models   the models read from this table
+     * @param resolver the resolver
+     */
+    void loadRelations(@NonNull Object[] models, @NonNull Resolver resolver);
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package net.frju.androidquery.database;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of rows keyed by their table and primary key, used to answer primary key lookups without SQLite.
+ * Only the row values are kept, so each lookup still returns a new model that the caller can freely modify.
+ */
+public class EntityCache {
+
+    private static class Entry {
+        final String table;
+        final CursorSnapshot snapshot;
+
+        Entry(String table, CursorSnapshot snapshot) {
+            this.table = table;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int mMaxSize;
+    private long mVersion;
+    private long mHitCount;
+    private long mMissCount;
+
+    /**
+     * @param maxSize the maximum number of rows kept, all tables included
+     */
+    public EntityCache(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * @return the version of the cache, which changes at each invalidation
+     */
+    public synchronized long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return a new cursor on the cached row, or null if not in cache
+     */
+    public synchronized
+    @Nullable
+    Cursor get(@NonNull String table, @NonNull Object primaryKey) {
+        Entry entry = mEntries.get(getKey(table, primaryKey));
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+
+        mHitCount++;
+        return entry.snapshot.newCursor();
+    }
+
+    /**
+     * Read the cursor to put its row in cache, then close it. Nothing is cached if it does not contain exactly one row.
+     * The row is cached under its stored primary key, which may differ from the looked up one: SQLite converts
+     * the TEXT '1' to the INTEGER 1 to compare it to an INTEGER column.
+     *
+     * @param table            the table of the row
+     * @param primaryKeyColumn the primary key column, which must be part of the cursor
+     * @param cursor           the result of the lookup
+     * @param version          the version of the cache before running the lookup, the row is not cached if it changed since
+     * @return a new cursor on the same result
+     */
+    public
+    @NonNull
+    Cursor put(@NonNull String table, @NonNull String primaryKeyColumn, @NonNull Cursor cursor, long version) {
+        CursorSnapshot snapshot = CursorSnapshot.read(cursor);
+        Object primaryKey = snapshot.getCount() == 1 ? snapshot.getValue(0, primaryKeyColumn) : null;
+
+        if (primaryKey != null) {
+            synchronized (this) {
+                if (version == mVersion) {
+                    mEntries.put(getKey(table, primaryKey), new Entry(table, snapshot));
+                    trimToSize();
+                }
+            }
+        }
+
+        return snapshot.newCursor();
+    }
+
+    /**
+     * Remove the row of that primary key
+     */
+    public synchronized void invalidate(@NonNull String table, @NonNull Object primaryKey) {
+        mVersion++;
+        mEntries.remove(getKey(table, primaryKey));
+    }
+
+    /**
+     * Remove all the rows of that table
+     */
+    public synchronized void invalidate(@NonNull String table) {
+        mVersion++;
+
+        Iterator<Entry> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            // SQLite table names are case insensitive
+            if (iterator.next().table.equalsIgnoreCase(table)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        mVersion++;
+        mEntries.clear();
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return the number of cached rows
+     */
+    public synchronized int getSize() {
+        return mEntries.size();
+    }
+
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    private static String getKey(String table, Object primaryKey) {
+        // \u0000 can't be part of a table name. The key is typed like the bound value, so that 1 and 1L are the
+        // same INTEGER key, while the TEXT '1' is another one
+        Object value = ClauseHelper.getBindArg(primaryKey);
+        return table + '\u0000' + (value instanceof String ? "'" + value + "'" : String.valueOf(value));
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while (mEntries.size() > mMaxSize && iterator.hasNext()) {
+            // the iteration order is the access order, so the first one is the least recently used
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Keeps one instance per model class and primary key, so the rows read by the queries sharing it
+ * (including the joined ones) which represent the same entity are mapped to the same object.
+ * The first instance read wins: the ones mapped afterwards with the same primary key are dropped.
+ * Not thread-safe, it is meant to be used for one query or one unit of work.
+ */
+public class IdentityMap {
+
+    private final HashMap<Class<?>, HashMap<Object, Object>> mModels = new HashMap<>();
+    private final IdentityHashMap<Object, Boolean> mInitializedModels = new IdentityHashMap<>();
+
+    /**
+     * @param classDef   the class of the model
+     * @param primaryKey the primary key of the model, or null if it does not have one
+     * @param model      the model which has just been read
+     * @return the instance already known for that primary key, or the given model which is now the known one
+     */
+    @SuppressWarnings("unchecked")
+    public
+    @NonNull
+    <T> T getUnique(@NonNull Class<T> classDef, @Nullable Object primaryKey, @NonNull T model) {
+        if (primaryKey == null) {
+            return model;
+        }
+
+        HashMap<Object, Object> models = mModels.get(classDef);
+        if (models == null) {
+            models = new HashMap<>();
+            mModels.put(classDef, models);
+        }
+
+        Object knownModel = models.get(primaryKey);
+        if (knownModel != null) {
+            return (T) knownModel;
+        }
+
+        models.put(primaryKey, model);
+        return model;
+    }
+
+    /**
+     * @return the known instance of that primary key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public
+    @Nullable
+    <T> T get(@NonNull Class<T> classDef, @NonNull Object primaryKey) {
+        HashMap<Object, Object> models = mModels.get(classDef);
+        return models != null ? (T) models.get(primaryKey) : null;
+    }
+
+    /**
+     * Mark the model as initialized with its init methods
+     *
+     * @return false if it was already initialized
+     */
+    boolean setInitialized(@NonNull Object model) {
+        return mInitializedModels.put(model, Boolean.TRUE) == null;
+    }
+
+    /**
+     * @return the number of known instances
+     */
+    public int size() {
+        int size = 0;
+        for (HashMap<Object, Object> models : mModels.values()) {
+            size += models.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        mModels.clear();
+        mInitializedModels.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.function.Select;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handle of a @Relation which only keeps the key when the model is read: the related model,
+ * or the list of related models, is queried on the first call to get() and then kept.
+ */
+public class Lazy<T> {
+
+    private final Class<?> mRelatedClass;
+    private final String mForeignColumn;
+    private final Object mKey;
+    private final boolean mToMany;
+    private final Resolver mResolver;
+    private T mValue;
+    private boolean mLoaded;
+
+    /**
+     * @param relatedClass  the class of the related models
+     * @param foreignColumn the column of the related models which references the key
+     * @param key           the value of the referenced column
+     * @param toMany        true if T is a List of related models, false if it is a related model
+     * @param resolver      the resolver
+     */
+    public Lazy(@NonNull Class<?> relatedClass, @NonNull String foreignColumn, @Nullable Object key, boolean toMany, @NonNull Resolver resolver) {
+        mRelatedClass = relatedClass;
+        mForeignColumn = foreignColumn;
+        mKey = key;
+        mToMany = toMany;
+        mResolver = resolver;
+    }
+
+    /**
+     * @return the related model (or null if there is none), or the list of related models. Runs a query the first time.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T get() {
+        if (!mLoaded) {
+            if (mKey == null) {
+                mValue = mToMany ? (T) new ArrayList<>() : null;
+            } else {
+                Select.Builder builder = Select.getBuilder(mRelatedClass, mResolver.getDatabaseProviderForModel(mRelatedClass))
+                        .where(Where.field(mForeignColumn).isEqualTo(mKey));
+                if (mToMany) {
+                    List<?> relatedModels = builder.query().toList();
+                    mValue = (T) (relatedModels != null ? relatedModels : new ArrayList<>());
+                } else {
+                    mValue = (T) builder.queryFirst();
+                }
+            }
+            mLoaded = true;
+        }
+
+        return mValue;
+    }
+
+    /**
+     * @return true if get() does not need to run a query anymore
+     */
+    public synchronized boolean isLoaded() {
+        return mLoaded;
+    }
+
+    /**
+     * @return the value of the referenced column
+     */
+    public
+    @Nullable
+    Object getKey() {
+        return mKey;
+    }
+}
@@ -0,0 +1,116 @@
+package net.frju.androidquery.database;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Sends the change notifications of a provider, coalescing the dirty URIs so each one is notified only once.
+ * By default the notifications are sent right away; with a coalescing window, all the URIs notified during
+ * that window are sent together once it elapsed.
+ */
+public class NotificationDispatcher {
+
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler;
+    private final LinkedHashSet<Uri> mPendingUris = new LinkedHashSet<>();
+    private long mCoalescingWindow;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public NotificationDispatcher(@NonNull ContentResolver contentResolver, @NonNull Looper looper) {
+        mContentResolver = contentResolver;
+        mHandler = new Handler(looper);
+    }
+
+    /**
+     * @param coalescingWindow the delay in ms during which the notifications are collected. 0 sends them right away.
+     */
+    public void setCoalescingWindow(long coalescingWindow) {
+        mCoalescingWindow = coalescingWindow;
+
+        if (coalescingWindow <= 0) {
+            flush();
+        }
+    }
+
+    public long getCoalescingWindow() {
+        return mCoalescingWindow;
+    }
+
+    public void notifyChange(@NonNull Uri uri) {
+        notifyChange(Collections.singletonList(uri));
+    }
+
+    public void notifyChange(@NonNull Collection<Uri> uris) {
+        if (uris.isEmpty()) {
+            return;
+        }
+
+        if (mCoalescingWindow <= 0) {
+            dispatch(uris);
+            return;
+        }
+
+        synchronized (mPendingUris) {
+            boolean flushScheduled = !mPendingUris.isEmpty();
+            mPendingUris.addAll(uris);
+
+            if (!flushScheduled) {
+                mHandler.postDelayed(mFlushRunnable, mCoalescingWindow);
+            }
+        }
+    }
+
+    /**
+     * Send right away the notifications collected during the current coalescing window
+     */
+    public void flush() {
+        List<Uri> uris;
+        synchronized (mPendingUris) {
+            mHandler.removeCallbacks(mFlushRunnable);
+            uris = new ArrayList<>(mPendingUris);
+            mPendingUris.clear();
+        }
+
+        dispatch(uris);
+    }
+
+    private void dispatch(@NonNull Collection<Uri> uris) {
+        LinkedHashSet<Uri> tableUris = new LinkedHashSet<>();
+        for (Uri uri : uris) {
+            if (uri.getPathSegments().size() <= 1) {
+                tableUris.add(uri);
+            }
+        }
+
+        LinkedHashSet<Uri> sentUris = new LinkedHashSet<>();
+        for (Uri uri : uris) {
+            // observers of a row are already notified by the notification of its table
+            if (uri.getPathSegments().size() > 1 && tableUris.contains(getTableUri(uri))) {
+                continue;
+            }
+
+            if (sentUris.add(uri)) {
+                mContentResolver.notifyChange(uri, null);
+            }
+        }
+    }
+
+    private static Uri getTableUri(@NonNull Uri uri) {
+        return uri.buildUpon().path(null).appendPath(uri.getPathSegments().get(0)).build();
+    }
+}
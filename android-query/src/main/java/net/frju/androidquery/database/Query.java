@@ -7,17 +7,28 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
+import net.frju.androidquery.operation.condition.Compare;
+import net.frju.androidquery.operation.condition.Param;
 import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.function.Aggregate;
+import net.frju.androidquery.operation.function.ColumnarResult;
 import net.frju.androidquery.operation.function.Count;
 import net.frju.androidquery.operation.function.CursorResult;
 import net.frju.androidquery.operation.function.Delete;
+import net.frju.androidquery.operation.function.Exists;
 import net.frju.androidquery.operation.function.Insert;
+import net.frju.androidquery.operation.function.Page;
 import net.frju.androidquery.operation.function.Save;
 import net.frju.androidquery.operation.function.Select;
+import net.frju.androidquery.operation.function.StreamResult;
 import net.frju.androidquery.operation.function.Update;
 import net.frju.androidquery.operation.keyword.Limit;
+import net.frju.androidquery.operation.keyword.OrderBy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import io.reactivex.Single;
@@ -37,14 +48,14 @@ public abstract class Query {
          * (other than the implied transaction that is created on every command)
          * then this algorithm works the same as ABORT.
          */
-        CONFLICT_ROLLBACK,
+        CONFLICT_ROLLBACK("ROLLBACK"),
 
         /**
          * When a constraint violation occurs,no ROLLBACK is executed
          * so changes from prior commands within the same transaction
          * are preserved. This is the default behavior.
          */
-        CONFLICT_ABORT,
+        CONFLICT_ABORT("ABORT"),
 
         /**
          * When a constraint violation occurs, the command aborts with a return
@@ -52,7 +63,7 @@ public abstract class Query {
          * the command made prior to encountering the constraint violation
          * are preserved and are not backed out.
          */
-        CONFLICT_FAIL,
+        CONFLICT_FAIL("FAIL"),
 
         /**
          * When a constraint violation occurs, the one row that contains
@@ -61,7 +72,7 @@ public abstract class Query {
          * after the row that contained the constraint violation continue to be
          * inserted or updated normally. No error is returned.
          */
-        CONFLICT_IGNORE,
+        CONFLICT_IGNORE("IGNORE"),
 
         /**
          * When a UNIQUE constraint violation occurs, the pre-existing rows that
@@ -76,66 +87,56 @@ public abstract class Query {
          * it does not invoke delete triggers on those rows.
          * This behavior might change in a future release.
          */
-        CONFLICT_REPLACE
+        CONFLICT_REPLACE("REPLACE");
+
+        private final String mValue;
+
+        ConflictResolution(String value) {
+            mValue = value;
+        }
+
+        @Override
+        public String toString() {
+            return mValue;
+        }
     }
 
-    protected static int save(Save save, Class<?> classDef, DatabaseProvider databaseProvider) {
-        int nb = 0;
-
-        DbModelDescriptor table = databaseProvider.getResolver().getDbModelDescriptor(classDef);
-        boolean isPrimaryKeyAutoIncrement = table.isPrimaryKeyAutoIncrement();
-
-        ArrayList<Object> modelsToInsert = new ArrayList<>();
-        for (Object model : save.getModels()) {
-            long id = 1; // first valid autoincrement id isEqualTo always >= 1
-            if (isPrimaryKeyAutoIncrement) {
-                // Try to guess if we for sure need to insert thanks to primary key
-                Object primaryKeyValue = table.getPrimaryKeyValue(model);
-                if (primaryKeyValue != null) {
-                    id = Long.parseLong(primaryKeyValue.toString()); // should be a short, int or long
-                }
-            }
+    private static final String ROW_ID = "rowid";
 
-            //noinspection unchecked
-            if (id <= 0 || Update.getBuilder(classDef, databaseProvider)
-                    .withConflictResolution(save.getConflictResolution())
-                    .model(model)
-                    .query() <= 0) {
-                modelsToInsert.add(model);
-            } else {
-                nb++;
+    // the values of the IN operators of the sub-queries and prepared selects are always inlined: their SQL is
+    // executed later, or nested in another query, so a temporary table would not be filled for them
+    private static final ClauseHelper SUB_QUERY_CLAUSE_HELPER = new ClauseHelper();
+
+    protected static int save(Save save, Class<?> classDef, DatabaseProvider databaseProvider) {
+        if (save.getModels() != null && save.getModels().length > 0) {
+            DbModelDescriptor dbModelDescriptor = getTableDescription(classDef, databaseProvider);
+            Object[] models = save.getModels();
+            // the providers call the ModelListener methods, once they know if the models are inserted or updated
+            try {
+                return databaseProvider.save(dbModelDescriptor, models, save.getConflictResolution(), save.shouldNotifyChange());
+            } finally {
+                invalidateEntities(dbModelDescriptor, models, save.getConflictResolution(), databaseProvider);
             }
         }
 
-        nb += Insert.getBuilder(databaseProvider, modelsToInsert.toArray())
-                .withConflictResolution(save.getConflictResolution())
-                .query();
-
-        return nb;
+        return 0;
     }
 
     protected static int insert(Insert insert, Class<?> classDef, DatabaseProvider databaseProvider) {
         if (insert.getModels() != null && insert.getModels().length > 0) {
             Object[] models = insert.getModels();
-            ContentValues[] valuesArray = new ContentValues[models.length];
-            DbModelDescriptor dbModelDescriptor = getTableDescription(classDef, databaseProvider);
-            for (int i = 0; i < models.length; i++) {
-                if (models[i] instanceof ModelListener) {
-                    ((ModelListener) models[i]).onPreInsert();
+            for (Object model : models) {
+                if (model instanceof ModelListener) {
+                    ((ModelListener) model).onPreInsert();
                 }
-                valuesArray[i] = dbModelDescriptor.getContentValues(models[i]);
             }
 
-            if (models.length == 1) {
-                long newId = databaseProvider.insert(dbModelDescriptor.getTableDbName(), valuesArray[0], insert.getConflictResolution());
-                if (newId != -1) {
-                    dbModelDescriptor.setIdToModel(models[0], newId);
-                    return 1;
-                } else {
-                    return 0;
-                }
-            } else {
-                return databaseProvider.bulkInsert(dbModelDescriptor.getTableDbName(), valuesArray, insert.getConflictResolution());
+            DbModelDescriptor dbModelDescriptor = getTableDescription(classDef, databaseProvider);
+            try {
+                return databaseProvider.bulkInsert(dbModelDescriptor, models, insert.getConflictResolution(), insert.shouldNotifyChange());
+            } finally {
+                // a replaced row may be cached
+                invalidateEntities(dbModelDescriptor, models, insert.getConflictResolution(), databaseProvider);
             }
         }
 
@@ -145,11 +146,25 @@ public abstract class Query {
     protected static Cursor selectCursor(Select select, Class<?> classDef, DatabaseProvider databaseProvider, boolean firstOnly) {
 
         DbModelDescriptor dbModelDescriptor = getTableDescription(classDef, databaseProvider);
+        EntityCache entityCache = databaseProvider instanceof BaseLocalDatabaseProvider ? databaseProvider.getEntityCache() : null;
+        Where[] where = WhereNormalizer.normalize(select.getClause());
+        Object primaryKey = entityCache != null ? getLookedUpPrimaryKey(select, where, dbModelDescriptor) : null;
+        String tableName = dbModelDescriptor.getTableDbName();
+
+        long version = 0;
+        if (primaryKey != null) {
+            Cursor cursor = entityCache.get(tableName, primaryKey);
+            if (cursor != null) {
+                cursor.setNotificationUri(databaseProvider.mContext.getContentResolver(), databaseProvider.getUri(tableName, null));
+                return cursor;
+            }
+            version = entityCache.getVersion();
+        }
 
-        return databaseProvider.query(
-                dbModelDescriptor.getTableDbName(),
-                select.getJoins() != null ? dbModelDescriptor.getColumnNamesWithTablePrefix() : dbModelDescriptor.getColumnNames(),
-                select.getClause(),
+        Cursor cursor = databaseProvider.query(
+                tableName,
+                getColumns(select, dbModelDescriptor),
+                where,
                 select.getJoins(),
                 null,
                 null,
@@ -157,21 +172,329 @@ public abstract class Query {
                 // small optimisation for local SQLite database (use a LIMIT to avoid fetching everything)
                 firstOnly && databaseProvider instanceof BaseLocalDatabaseProvider ? new Limit(0, 1) : select.getLimit()
         );
+
+        // Inside a transaction, the not yet committed data must not be cached
+        if (primaryKey != null && cursor != null && !((BaseLocalDatabaseProvider) databaseProvider).isInTransaction()) {
+            cursor = entityCache.put(tableName, dbModelDescriptor.getPrimaryKeyDbName(), cursor, version);
+            cursor.setNotificationUri(databaseProvider.mContext.getContentResolver(), databaseProvider.getUri(tableName, null));
+        }
+
+        return cursor;
+    }
+
+    /**
+     * @return the primary key value if the select is a simple lookup of all the columns of one row by primary key, null otherwise
+     */
+    private static Object getLookedUpPrimaryKey(Select select, Where[] where, DbModelDescriptor dbModelDescriptor) {
+        String primaryKeyName = dbModelDescriptor.getPrimaryKeyDbName();
+        if (TextUtils.isEmpty(primaryKeyName) || where == null || where.length != 1 || !(where[0] instanceof Compare)
+                || select.getJoins() != null || (select.getFields() != null && select.getFields().length > 0)
+                || (select.getLimit() != null && (select.getLimit().getStart() != 0 || select.getLimit().getEnd() <= 0))) {
+            return null;
+        }
+
+        Compare compare = (Compare) where[0];
+        String column = compare.getColumn();
+        if (compare.getOperator() != Compare.Op.IS || compare.getValue() == null || compare.getValue() instanceof Where.Field
+                || !(column.equals(primaryKeyName) || column.equals(dbModelDescriptor.getTableDbName() + "." + primaryKeyName))) {
+            return null;
+        }
+
+        return compare.getValue();
+    }
+
+    /**
+     * Remove the written models from the entity cache, or all the rows of their table if the write may have changed other rows
+     */
+    private static void invalidateEntities(DbModelDescriptor dbModelDescriptor, @Nullable Object[] models, ConflictResolution conflictResolution, DatabaseProvider databaseProvider) {
+        EntityCache entityCache = databaseProvider.getEntityCache();
+        if (entityCache == null) {
+            return;
+        }
+
+        String tableName = dbModelDescriptor.getTableDbName();
+        // REPLACE deletes the other rows which conflict with a unique constraint
+        if (models == null || conflictResolution == ConflictResolution.CONFLICT_REPLACE) {
+            entityCache.invalidate(tableName);
+            return;
+        }
+
+        for (Object model : models) {
+            Object primaryKeyValue = dbModelDescriptor.getPrimaryKeyValue(model);
+            if (primaryKeyValue != null) {
+                entityCache.invalidate(tableName, primaryKeyValue);
+            }
+        }
     }
 
     protected static <T> CursorResult<T> select(Select select, Class<T> classDef, DatabaseProvider databaseProvider) {
         Cursor cursor = selectCursor(select, classDef, databaseProvider, false);
-        return new CursorResult<>(classDef, databaseProvider.getResolver(), cursor);
+        return new CursorResult<>(classDef, databaseProvider.getResolver(), cursor, select.getIdentityMap());
+    }
+
+    protected static <T> StreamResult<T> selectStream(final Select select, final Class<T> classDef, final DatabaseProvider databaseProvider, int chunkSize) {
+        if (select.getJoins() != null || select.getOrderBy() != null || select.getLimit() != null) {
+            throw new IllegalStateException("stream() does not support joins, orderBy or limit: rows are returned by rowid order");
+        }
+
+        final DbModelDescriptor dbModelDescriptor = getTableDescription(classDef, databaseProvider);
+
+        if (!(databaseProvider instanceof BaseLocalDatabaseProvider)) {
+            // Only BaseContentProvider honors the limit parameter, other ContentProviders ignore it and may not
+            // expose the rowid either, the result is then read from only one cursor
+            return new StreamResult<T>(dbModelDescriptor, chunkSize) {
+                @Override
+                protected Cursor queryChunk(@Nullable Long lastRowId, int chunkSize) {
+                    return selectCursor(select, classDef, databaseProvider, false);
+                }
+            };
+        }
+
+        String[] tableColumns = getColumns(select, dbModelDescriptor);
+        final String[] columns = Arrays.copyOf(tableColumns, tableColumns.length + 1);
+        columns[tableColumns.length] = ROW_ID + " AS " + StreamResult.ROW_ID_COLUMN;
+
+        final Where[] clause = WhereNormalizer.normalize(select.getClause());
+
+        return new StreamResult<T>(dbModelDescriptor, chunkSize) {
+            @Override
+            protected Cursor queryChunk(@Nullable Long lastRowId, int chunkSize) {
+                Where[] where = clause;
+                if (lastRowId != null) {
+                    Where rowIdWhere = Where.field(ROW_ID).isGreaterThan(lastRowId);
+                    if (where == null || where.length == 0) {
+                        where = new Where[]{rowIdWhere};
+                    } else {
+                        where = Arrays.copyOf(where, where.length + 1);
+                        where[where.length - 1] = rowIdWhere;
+                    }
+                }
+
+                // each chunk is read only once, it must not take the place of the cached results
+                return ((BaseLocalDatabaseProvider) databaseProvider).query(
+                        dbModelDescriptor.getTableDbName(),
+                        columns,
+                        where,
+                        null,
+                        null,
+                        null,
+                        new OrderBy[]{new OrderBy(ROW_ID, OrderBy.Order.ASC)},
+                        new Limit(0, chunkSize),
+                        false
+                );
+            }
+        };
+    }
+
+    protected static ColumnarResult pluck(Select select, Class<?> classDef, DatabaseProvider databaseProvider) {
+        if (select.getFields() == null || select.getFields().length == 0) {
+            throw new IllegalStateException("pluck require at least one column");
+        }
+
+        return new ColumnarResult(selectCursor(select, classDef, databaseProvider, false));
+    }
+
+    protected static <T> Page<T> selectPage(Select select, Class<T> classDef, DatabaseProvider databaseProvider, @Nullable Object[] afterKey, int pageSize) {
+        if (select.getLimit() != null) {
+            throw new IllegalStateException("keyset pagination does not support limit, use the page size instead");
+        }
+
+        DbModelDescriptor dbModelDescriptor = getTableDescription(classDef, databaseProvider);
+        OrderBy[] orderBy = getPageOrderBy(select.getOrderBy(), dbModelDescriptor);
+
+        Where[] where = WhereNormalizer.normalize(select.getClause());
+        if (afterKey != null && afterKey.length > 0) {
+            if (afterKey.length > orderBy.length) {
+                throw new IllegalStateException("The key has more values than there are orderBy columns");
+            }
+
+            Where seekWhere = getSeekCondition(orderBy, afterKey);
+            if (seekWhere == null) {
+                // nothing can be after that key
+                return new Page<>(new ArrayList<T>(), null);
+            } else if (where == null || where.length == 0) {
+                where = new Where[]{seekWhere};
+            } else {
+                where = Arrays.copyOf(where, where.length + 1);
+                where[where.length - 1] = seekWhere;
+            }
+        }
+
+        Cursor cursor = databaseProvider.query(
+                dbModelDescriptor.getTableDbName(),
+                getColumns(select, dbModelDescriptor),
+                where,
+                select.getJoins(),
+                null,
+                null,
+                orderBy,
+                // one more row tells if there is a next page
+                new Limit(0, pageSize + 1)
+        );
+
+        List<T> items = new ArrayList<>();
+        Object[] nextKey = null;
+        if (cursor != null) {
+            try {
+                Object[] lastKey = null;
+                while (cursor.moveToNext()) {
+                    if (items.size() == pageSize) {
+                        nextKey = lastKey;
+                        break;
+                    }
+
+                    T item = dbModelDescriptor.getSingleResult(cursor, select.getIdentityMap());
+                    items.add(item);
+                    lastKey = getKey(cursor, orderBy);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        return new Page<>(items, nextKey);
+    }
+
+    protected static <T> Object[] getPageKey(Select select, Class<T> classDef, DatabaseProvider databaseProvider, @NonNull T model) {
+        DbModelDescriptor dbModelDescriptor = getTableDescription(classDef, databaseProvider);
+        OrderBy[] orderBy = getPageOrderBy(select.getOrderBy(), dbModelDescriptor);
+
+        Object[] key = new Object[orderBy.length];
+        for (int i = 0; i < orderBy.length; i++) {
+            String field = orderBy[i].getField();
+            // the primary key added to break the ties is not part of the content values when auto-incremented
+            key[i] = Relations.getColumnValue(dbModelDescriptor, model, field.substring(field.lastIndexOf('.') + 1));
+        }
+        return key;
+    }
+
+    /**
+     * Keyset pagination requires a total order, the primary key is added at the end when needed to break the ties
+     */
+    private static OrderBy[] getPageOrderBy(OrderBy[] orderBy, DbModelDescriptor dbModelDescriptor) {
+        if (orderBy == null || orderBy.length == 0) {
+            throw new IllegalStateException("keyset pagination require an orderBy");
+        }
+
+        for (OrderBy item : orderBy) {
+            if (item.getOrder() == OrderBy.Order.RANDOM) {
+                throw new IllegalStateException("keyset pagination does not support a random order");
+            }
+        }
+
+        String primaryKeyName = dbModelDescriptor.getPrimaryKeyDbName();
+        if (TextUtils.isEmpty(primaryKeyName)) {
+            return orderBy;
+        }
+
+        for (OrderBy item : orderBy) {
+            String field = item.getField();
+            if (field.equals(primaryKeyName) || field.equals(dbModelDescriptor.getTableDbName() + "." + primaryKeyName)) {
+                return orderBy;
+            }
+        }
+
+        OrderBy[] result = Arrays.copyOf(orderBy, orderBy.length + 1);
+        result[orderBy.length] = new OrderBy(dbModelDescriptor.getTableDbName() + "." + primaryKeyName, OrderBy.Order.ASC);
+        return result;
+    }
+
+    /**
+     * Same as (a, b) > (?, ?) but also working with mixed order directions and SQLite versions before 3.15:
+     * a > ? OR (a IS ? AND b > ?)
+     * <p>
+     * The NULL values are sorted first in ASC order and last in DESC order, so they are compared with IS (NOT) NULL.
+     *
+     * @return the condition, or null if no row can be after the key
+     */
+    private static Where getSeekCondition(OrderBy[] orderBy, Object[] key) {
+        List<Where> alternatives = new ArrayList<>(key.length);
+
+        for (int i = 0; i < key.length; i++) {
+            Where after = getAfterCondition(orderBy[i], key[i]);
+            if (after == null) {
+                continue;
+            }
+
+            Where[] conditions = new Where[i + 1];
+            for (int j = 0; j < i; j++) {
+                // IS also matches the NULL values
+                conditions[j] = Where.field(getSeekColumn(orderBy[j])).isEqualTo(key[j]);
+            }
+            conditions[i] = after;
+
+            alternatives.add(conditions.length == 1 ? conditions[0] : Where.combinesWithAnd(conditions));
+        }
+
+        if (alternatives.isEmpty()) {
+            return null;
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : Where.combinesWithOr(alternatives.toArray(new Where[alternatives.size()]));
+    }
+
+    /**
+     * @return the condition of the values strictly after the key value in that order, or null if there is none
+     */
+    private static Where getAfterCondition(OrderBy orderBy, Object value) {
+        Where.Field field = Where.field(getSeekColumn(orderBy));
+        if (orderBy.getOrder() == OrderBy.Order.DESC) {
+            return value == null ? null : field.isLessThan(value).or(field.isNull());
+        }
+        return value == null ? field.isNotNull() : field.isGreaterThan(value);
+    }
+
+    private static String getSeekColumn(OrderBy orderBy) {
+        if (orderBy.getCollate() != null) {
+            return orderBy.getField() + " COLLATE " + orderBy.getCollate().toString();
+        }
+        return orderBy.getField();
+    }
+
+    private static Object[] getKey(Cursor cursor, OrderBy[] orderBy) {
+        Object[] key = new Object[orderBy.length];
+
+        for (int i = 0; i < orderBy.length; i++) {
+            // getColumnIndex() also removes the table prefix
+            int index = cursor.getColumnIndex(orderBy[i].getField());
+            if (index == -1) {
+                throw new IllegalStateException("The orderBy column " + orderBy[i].getField() + " must be part of the selected fields");
+            }
+
+            switch (cursor.getType(index)) {
+                case Cursor.FIELD_TYPE_NULL:
+                    key[i] = null;
+                    break;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    key[i] = cursor.getLong(index);
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    key[i] = cursor.getDouble(index);
+                    break;
+                default:
+                    key[i] = cursor.getString(index);
+                    break;
+            }
+        }
+
+        return key;
     }
 
     protected static <T> T[] selectAndInit(Select select, Class<T> classDef, DatabaseProvider databaseProvider) {
         Cursor cursor = selectCursor(select, classDef, databaseProvider, false);
 
         Resolver resolver = databaseProvider.getResolver();
-        T[] result = new CursorResult<>(classDef, resolver, cursor).toArray();
+        IdentityMap identityMap = select.getIdentityMap();
+        T[] result = new CursorResult<>(classDef, resolver, cursor, identityMap).toArray();
+
+        if (result.length > 0) {
+            getTableDescription(classDef, databaseProvider).loadRelations(result, resolver);
+        }
 
         for (T object : result) {
-            resolver.initModelWithInitMethods(object);
+            // a shared instance is only initialized once
+            if (identityMap == null || identityMap.setInitialized(object)) {
+                resolver.initModelWithInitMethods(object);
+            }
         }
 
         return result;
@@ -180,7 +503,7 @@ public abstract class Query {
     protected static <T> T selectFirst(Select select, Class<T> classDef, DatabaseProvider databaseProvider) {
         Cursor cursor = selectCursor(select, classDef, databaseProvider, true);
 
-        T[] results = getTableDescription(classDef, databaseProvider).getArrayResult(cursor);
+        T[] results = getTableDescription(classDef, databaseProvider).getArrayResult(cursor, select.getIdentityMap());
 
         if (results != null && results.length > 0) {
             return results[0];
@@ -192,10 +515,15 @@ public abstract class Query {
     protected static <T> T selectFirstAndInit(Select select, Class<T> classDef, DatabaseProvider databaseProvider) {
         Cursor cursor = selectCursor(select, classDef, databaseProvider, true);
 
-        T[] results = getTableDescription(classDef, databaseProvider).getArrayResult(cursor);
+        T[] results = getTableDescription(classDef, databaseProvider).getArrayResult(cursor, select.getIdentityMap());
 
         if (results != null && results.length > 0) {
-            databaseProvider.getResolver().initModelWithInitMethods(results[0]);
+            getTableDescription(classDef, databaseProvider).loadRelations(new Object[]{results[0]}, databaseProvider.getResolver());
+
+            IdentityMap identityMap = select.getIdentityMap();
+            if (identityMap == null || identityMap.setInitialized(results[0])) {
+                databaseProvider.getResolver().initModelWithInitMethods(results[0]);
+            }
             return results[0];
         } else {
             return null;
@@ -210,6 +538,7 @@ public abstract class Query {
             String uriSuffix = null;
             ContentValues[] valuesArray = new ContentValues[models.length];
             Where[][] conditionsArray = new Where[models.length][];
+            Where[] conditions = WhereNormalizer.normalize(update.getConditions());
 
             for (int i = 0; i < models.length; i++) {
                 Object model = models[i];
@@ -221,7 +550,7 @@ public abstract class Query {
                     }
                 }
 
-                conditionsArray[i] = update.getConditions();
+                conditionsArray[i] = conditions;
                 if (conditionsArray[i] == null) {
                     if (TextUtils.isEmpty(primaryKeyName)) {
                         throw new IllegalStateException("update with model() method require a primary key");
@@ -237,31 +566,65 @@ public abstract class Query {
                 valuesArray[i] = tableDesc.getContentValues(model);
             }
 
-            return databaseProvider.bulkUpdate(
-                    tableDesc.getTableDbName(),
-                    uriSuffix,
-                    valuesArray,
-                    conditionsArray,
-                    update.getConflictResolution()
-            );
+            try {
+                return databaseProvider.bulkUpdate(
+                        tableDesc.getTableDbName(),
+                        uriSuffix,
+                        valuesArray,
+                        conditionsArray,
+                        update.getConflictResolution(),
+                        update.shouldNotifyChange()
+                );
+            } finally {
+                // with custom conditions, the updated rows are not the ones of the models
+                invalidateEntities(tableDesc, update.getConditions() == null ? models : null, update.getConflictResolution(), databaseProvider);
+            }
         } else {
-            return databaseProvider.bulkUpdate(
-                    getTableDescription(classDef, databaseProvider).getTableDbName(),
-                    null,
-                    new ContentValues[]{update.getContentValues()},
-                    new Where[][]{update.getConditions()},
-                    update.getConflictResolution()
-            );
+            DbModelDescriptor tableDesc = getTableDescription(classDef, databaseProvider);
+            try {
+                return databaseProvider.bulkUpdate(
+                        tableDesc.getTableDbName(),
+                        null,
+                        new ContentValues[]{update.getContentValues()},
+                        new Where[][]{WhereNormalizer.normalize(update.getConditions())},
+                        update.getConflictResolution(),
+                        update.shouldNotifyChange()
+                );
+            } finally {
+                invalidateEntities(tableDesc, null, update.getConflictResolution(), databaseProvider);
+            }
         }
     }
 
     protected static long count(Count count, Class<?> classDef, DatabaseProvider databaseProvider) {
         return databaseProvider.count(
                 getTableDescription(classDef, databaseProvider).getTableDbName(),
-                count.getClause()
+                WhereNormalizer.normalize(count.getClause())
         );
     }
 
+    protected static boolean exists(Exists exists, Class<?> classDef, DatabaseProvider databaseProvider) {
+        return databaseProvider.exists(
+                getTableDescription(classDef, databaseProvider),
+                WhereNormalizer.normalize(exists.getClause())
+        );
+    }
+
+    protected static ColumnarResult aggregate(Aggregate aggregate, Class<?> classDef, DatabaseProvider databaseProvider) {
+        String[] groupBy = aggregate.getGroupBy();
+
+        return new ColumnarResult(databaseProvider.query(
+                getTableDescription(classDef, databaseProvider).getTableDbName(),
+                aggregate.getColumns(),
+                WhereNormalizer.normalize(aggregate.getClause()),
+                null,
+                groupBy != null && groupBy.length > 0 ? TextUtils.join(",", groupBy) : null,
+                WhereNormalizer.normalize(aggregate.getHaving()),
+                aggregate.getOrderBy(),
+                aggregate.getLimit()
+        ));
+    }
+
     protected static int delete(Delete delete, Class<?> classDef, DatabaseProvider databaseProvider) {
         Object[] models = delete.getModels();
 
@@ -286,19 +649,35 @@ public abstract class Query {
                 }
             }
 
-            Where where = Where.field(primaryKeyName).isIn(keys);
-
-            return databaseProvider.delete(
-                    tableDesc.getTableDbName(),
-                    uriSuffix,
-                    new Where[]{where}
-            );
+            try {
+                // a local database reads the big IN lists from a temporary table, a content provider needs several queries
+                int chunkSize = databaseProvider instanceof BaseLocalDatabaseProvider ? keys.length : BaseLocalDatabaseProvider.MAX_SQL_VARIABLES;
+                int nbDeleted = 0;
+                for (int start = 0; start < keys.length; start += chunkSize) {
+                    Object[] chunk = start == 0 && chunkSize >= keys.length ? keys : Arrays.copyOfRange(keys, start, Math.min(start + chunkSize, keys.length));
+                    nbDeleted += databaseProvider.delete(
+                            tableDesc.getTableDbName(),
+                            uriSuffix,
+                            new Where[]{Where.field(primaryKeyName).isIn(chunk)},
+                            delete.shouldNotifyChange()
+                    );
+                }
+                return nbDeleted;
+            } finally {
+                invalidateEntities(tableDesc, models, ConflictResolution.CONFLICT_ABORT, databaseProvider);
+            }
         } else {
-            return databaseProvider.delete(
-                    getTableDescription(classDef, databaseProvider).getTableDbName(),
-                    null,
-                    delete.getConditions()
-            );
+            DbModelDescriptor tableDesc = getTableDescription(classDef, databaseProvider);
+            try {
+                return databaseProvider.delete(
+                        tableDesc.getTableDbName(),
+                        null,
+                        WhereNormalizer.normalize(delete.getConditions()),
+                        delete.shouldNotifyChange()
+                );
+            } finally {
+                invalidateEntities(tableDesc, null, ConflictResolution.CONFLICT_ABORT, databaseProvider);
+            }
         }
     }
 
@@ -344,6 +723,95 @@ public abstract class Query {
                 .observeOn(AndroidSchedulers.mainThread());
     }
 
+    protected static String getSubQuerySql(Select select, Class<?> classDef, DatabaseProvider databaseProvider) {
+        DbModelDescriptor dbModelDescriptor = getTableDescription(classDef, databaseProvider);
+        Where[] where = WhereNormalizer.normalize(select.getClause());
+
+        int argsCount = SUB_QUERY_CLAUSE_HELPER.getConditionBindArgsCount(where);
+        if (argsCount > ClauseHelper.MAX_BIND_ARGS) {
+            throw new IllegalArgumentException("A sub-query or a prepared select can not have more than " +
+                    ClauseHelper.MAX_BIND_ARGS + " arguments, this one has " + argsCount +
+                    ". Move the large IN lists to the outer query, which reads them from a temporary table.");
+        }
+
+        return SUB_QUERY_CLAUSE_HELPER.buildSelectQuery(
+                getColumns(select, dbModelDescriptor),
+                dbModelDescriptor.getTableDbName(),
+                select.getJoins(),
+                where,
+                select.getOrderBy(),
+                select.getLimit(),
+                databaseProvider.getResolver()
+        );
+    }
+
+    protected static Object[] getSubQueryArgs(Select select) {
+        return SUB_QUERY_CLAUSE_HELPER.getConditionBindArgs(WhereNormalizer.normalize(select.getClause()));
+    }
+
+    protected static String[] getSubQueryTables(Select select, Class<?> classDef, DatabaseProvider databaseProvider) {
+        return databaseProvider.getTables(
+                getTableDescription(classDef, databaseProvider).getTableDbName(),
+                select.getJoins(),
+                select.getClause()
+        );
+    }
+
+    protected static <T> CursorResult<T> selectPrepared(Class<T> classDef, DatabaseProvider databaseProvider, String sql, Object[] args,
+                                                         String[] tables, Map<String, ?> params) {
+        return new CursorResult<>(classDef, databaseProvider.getResolver(), preparedCursor(classDef, databaseProvider, sql, args, tables, params));
+    }
+
+    protected static <T> T selectFirstPrepared(Class<T> classDef, DatabaseProvider databaseProvider, String sql, Object[] args,
+                                               String[] tables, Map<String, ?> params) {
+        Cursor cursor = preparedCursor(classDef, databaseProvider, sql, args, tables, params);
+        if (cursor == null) {
+            return null;
+        }
+
+        try {
+            return cursor.moveToFirst() ? getTableDescription(classDef, databaseProvider).<T>getSingleResult(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static Cursor preparedCursor(Class<?> classDef, DatabaseProvider databaseProvider, String sql, Object[] args,
+                                         String[] tables, Map<String, ?> params) {
+        Object[] boundArgs = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Param) {
+                String name = ((Param) args[i]).getName();
+                if (!params.containsKey(name)) {
+                    throw new IllegalArgumentException("No value for the parameter " + name);
+                }
+                boundArgs[i] = ClauseHelper.getBindArg(params.get(name));
+            } else {
+                boundArgs[i] = args[i];
+            }
+        }
+
+        return ((BaseLocalDatabaseProvider) databaseProvider).query(sql, boundArgs, tables,
+                getTableDescription(classDef, databaseProvider).getTableDbName());
+    }
+
+    private static String[] getColumns(Select select, DbModelDescriptor dbModelDescriptor) {
+        String[] fields = select.getFields();
+        if (fields == null || fields.length == 0) {
+            return select.getJoins() != null ? dbModelDescriptor.getColumnNamesWithTablePrefix() : dbModelDescriptor.getColumnNames();
+        }
+
+        if (select.getJoins() == null) {
+            return fields;
+        }
+
+        String[] columns = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            columns[i] = fields[i].contains(".") ? fields[i] : dbModelDescriptor.getTableDbName() + "." + fields[i];
+        }
+        return columns;
+    }
+
     private static DbModelDescriptor getTableDescription(Class<?> classDef, DatabaseProvider databaseProvider) {
         return databaseProvider.getResolver().getDbModelDescriptor(classDef);
     }
@@ -0,0 +1,224 @@
+package net.frju.androidquery.database;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU cache of query results, keyed by their SQL and bind arguments. The entries are invalidated as soon
+ * as one of the tables they read is written through the provider, and evicted when the memory budget is exceeded.
+ */
+public class QueryCache {
+
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int ROW_OVERHEAD = 16;
+
+    private static class Entry {
+        final String[] tables;
+        final CursorSnapshot snapshot;
+        final int size;
+
+        Entry(String[] tables, CursorSnapshot snapshot, int size) {
+            this.tables = tables;
+            this.snapshot = snapshot;
+            this.size = size;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int mMaxSize;
+    private int mSize;
+    private long mVersion;
+    private long mHitCount;
+    private long mMissCount;
+
+    /**
+     * @param maxSize the memory budget of the cache, in bytes
+     */
+    public QueryCache(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Build the key of a query
+     *
+     * @param sql  the SQL of the query
+     * @param args its bind arguments
+     * @return the cache key
+     */
+    public static
+    @NonNull
+    String getKey(@NonNull String sql, @Nullable Object[] args) {
+        StringBuilder key = new StringBuilder(sql);
+        if (args != null) {
+            for (Object arg : args) {
+                // \u0000 can't be part of a SQL query and separates the arguments
+                key.append('\u0000');
+                // the type is part of the key, since 1 and '1' are not equal for SQLite
+                if (arg instanceof byte[]) {
+                    key.append("b:").append(Arrays.toString((byte[]) arg));
+                } else if (arg instanceof Number) {
+                    key.append("n:").append(arg);
+                } else {
+                    key.append(arg == null ? "null" : "s:" + arg);
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return the version of the cache, which changes at each invalidation
+     */
+    public synchronized long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return a new cursor on the cached result, or null if not in cache
+     */
+    public synchronized
+    @Nullable
+    Cursor get(@NonNull String key) {
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+
+        mHitCount++;
+        return entry.snapshot.newCursor();
+    }
+
+    /**
+     * Read the cursor to put its result in cache, then close it.
+     * A result bigger than the whole budget is not read further: the cursor is rewound and returned as is.
+     *
+     * @param key     the key of the query
+     * @param tables  the tables read by the query
+     * @param cursor  the result of the query
+     * @param version the version of the cache before running the query, the result is not cached if it changed since
+     * @return a cursor on the same result
+     */
+    public
+    @NonNull
+    Cursor put(@NonNull String key, @NonNull String[] tables, @NonNull Cursor cursor, long version) {
+        String[] columnNames = cursor.getColumnNames();
+        List<Object[]> rows = new ArrayList<>();
+        int size = ENTRY_OVERHEAD + key.length() * 2;
+
+        try {
+            while (cursor.moveToNext()) {
+                Object[] row = CursorSnapshot.readRow(cursor, columnNames.length);
+                size += ROW_OVERHEAD + getSize(row);
+
+                // it would evict everything else for nothing, and must not be copied on the heap
+                if (size > mMaxSize) {
+                    cursor.moveToPosition(-1);
+                    return cursor;
+                }
+
+                rows.add(row);
+            }
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+        cursor.close();
+
+        CursorSnapshot snapshot = new CursorSnapshot(columnNames, rows);
+
+        synchronized (this) {
+            if (version == mVersion) {
+                Entry previous = mEntries.put(key, new Entry(tables, snapshot, size));
+                if (previous != null) {
+                    mSize -= previous.size;
+                }
+                mSize += size;
+                trimToSize();
+            }
+        }
+
+        return snapshot.newCursor();
+    }
+
+    /**
+     * Remove all the entries which read that table
+     */
+    public synchronized void invalidate(@NonNull String table) {
+        mVersion++;
+
+        Iterator<Entry> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            for (String entryTable : entry.tables) {
+                // SQLite table names are case insensitive
+                if (entryTable.equalsIgnoreCase(table)) {
+                    mSize -= entry.size;
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        mVersion++;
+        mEntries.clear();
+        mSize = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return the estimated memory used by the cached results, in bytes
+     */
+    public synchronized int getSize() {
+        return mSize;
+    }
+
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * @return the estimated memory used by the values of a row, in bytes
+     */
+    private static int getSize(Object[] row) {
+        int size = 0;
+        for (Object value : row) {
+            if (value instanceof String) {
+                size += 40 + ((String) value).length() * 2;
+            } else if (value instanceof byte[]) {
+                size += 16 + ((byte[]) value).length;
+            } else if (value != null) {
+                size += 16;
+            } else {
+                size += 4;
+            }
+        }
+        return size;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while (mSize > mMaxSize && iterator.hasNext()) {
+            // the iteration order is the access order, so the first one is the least recently used
+            mSize -= iterator.next().getValue().size;
+            iterator.remove();
+        }
+    }
+}
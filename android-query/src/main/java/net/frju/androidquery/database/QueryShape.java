@@ -0,0 +1,229 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.Nullable;
+
+import net.frju.androidquery.operation.condition.And;
+import net.frju.androidquery.operation.condition.Between;
+import net.frju.androidquery.operation.condition.Compare;
+import net.frju.androidquery.operation.condition.In;
+import net.frju.androidquery.operation.condition.Or;
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.join.Join;
+import net.frju.androidquery.operation.keyword.Limit;
+import net.frju.androidquery.operation.keyword.OrderBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Structural fingerprint of a query: two queries with the same shape only differ by the values of their arguments,
+ * so they have the same SQL. It is compared without building any string, and does not keep the argument values.
+ */
+final class QueryShape {
+    private static final int NULL_VALUE = 0;
+    private static final int FIELD_VALUE = 1;
+    private static final int ARG_VALUE = 2;
+    // the values of a not inlined IN are read from a temporary table whatever their number
+    private static final int NOT_INLINED_VALUES = -1;
+
+    private final String mTableName;
+    private final String[] mColumns;
+    private final Join[] mJoins;
+    private final Object[] mWhere;
+    private final String mGroupBy;
+    private final Object[] mHaving;
+    private final OrderBy[] mOrderBy;
+    private final Limit mLimit;
+    private final int mHashCode;
+
+    private QueryShape(String tableName, String[] columns, Join[] joins, Object[] where, String groupBy, Object[] having,
+                       OrderBy[] orderBy, Limit limit, int hashCode) {
+        mTableName = tableName;
+        mColumns = columns;
+        mJoins = joins;
+        mWhere = where;
+        mGroupBy = groupBy;
+        mHaving = having;
+        mOrderBy = orderBy;
+        mLimit = limit;
+        mHashCode = hashCode;
+    }
+
+    /**
+     * @return the shape of the query, or null if it is not worth caching because of a sub-query
+     */
+    static
+    @Nullable
+    QueryShape of(@Nullable String tableName, @Nullable String[] columns, @Nullable Join[] joins, @Nullable Where[] where,
+                  @Nullable String groupBy, @Nullable Where[] having, @Nullable OrderBy[] orderBy, @Nullable Limit limit,
+                  int maxInlinedInValues) {
+        // the sub-queries have their own builder
+        Object[] whereShape = getShape(where, maxInlinedInValues);
+        Object[] havingShape = getShape(having, maxInlinedInValues);
+        if ((where != null && whereShape == null) || (having != null && havingShape == null)) {
+            return null;
+        }
+
+        int hashCode = tableName != null ? tableName.hashCode() : 0;
+        hashCode = 31 * hashCode + Arrays.hashCode(columns);
+        if (joins != null) {
+            for (Join join : joins) {
+                hashCode = 31 * hashCode + join.getType().ordinal();
+                hashCode = 31 * hashCode + join.getAddedTable().hashCode();
+                hashCode = 31 * hashCode + join.getAddedTableColumn().hashCode();
+            }
+        }
+        hashCode = 31 * hashCode + Arrays.hashCode(whereShape);
+        hashCode = 31 * hashCode + (groupBy != null ? groupBy.hashCode() : 0);
+        hashCode = 31 * hashCode + Arrays.hashCode(havingShape);
+        if (orderBy != null) {
+            for (OrderBy item : orderBy) {
+                hashCode = 31 * hashCode + (item.getField() != null ? item.getField().hashCode() : 0);
+                hashCode = 31 * hashCode + item.getOrder().ordinal();
+            }
+        }
+        if (limit != null) {
+            hashCode = 31 * hashCode + limit.getStart();
+            hashCode = 31 * hashCode + limit.getEnd();
+        }
+
+        return new QueryShape(tableName, columns, joins, whereShape, groupBy, havingShape, orderBy, limit, hashCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QueryShape)) {
+            return false;
+        }
+
+        QueryShape other = (QueryShape) o;
+        return mHashCode == other.mHashCode
+                && equals(mTableName, other.mTableName)
+                && Arrays.equals(mColumns, other.mColumns)
+                && sameJoins(mJoins, other.mJoins)
+                && Arrays.equals(mWhere, other.mWhere)
+                && equals(mGroupBy, other.mGroupBy)
+                && Arrays.equals(mHaving, other.mHaving)
+                && sameOrderBy(mOrderBy, other.mOrderBy)
+                && sameLimit(mLimit, other.mLimit);
+    }
+
+    /**
+     * @return the conditions flattened into what makes their SQL: their types, columns, operators and number of
+     * placeholders, or null if one of them has no shape
+     */
+    private static Object[] getShape(Where[] where, int maxInlinedInValues) {
+        if (where == null) {
+            return null;
+        }
+
+        ArrayList<Object> shape = new ArrayList<>();
+        for (Where item : where) {
+            if (!addShape(item, shape, maxInlinedInValues)) {
+                return null;
+            }
+        }
+        return shape.toArray();
+    }
+
+    private static boolean addShape(Where where, ArrayList<Object> shape, int maxInlinedInValues) {
+        shape.add(where.getClass());
+
+        if (where instanceof Compare) {
+            Compare compare = (Compare) where;
+            Object value = compare.getValue();
+            shape.add(compare.getColumn());
+            shape.add(compare.getOperator());
+            if (value == null) {
+                shape.add(NULL_VALUE);
+            } else if (value instanceof Where.Field) {
+                // the column name is part of the SQL
+                shape.add(FIELD_VALUE);
+                shape.add(((Where.Field) value).getFieldDbName());
+            } else {
+                shape.add(ARG_VALUE);
+            }
+        } else if (where instanceof In) {
+            In in = (In) where;
+            int length = in.getValues().length;
+            shape.add(in.getColumn());
+            shape.add(in.hasNot());
+            shape.add(length <= maxInlinedInValues ? length : NOT_INLINED_VALUES);
+        } else if (where instanceof Between) {
+            Between between = (Between) where;
+            shape.add(between.getColumn());
+            shape.add(between.hasNot());
+        } else if (where instanceof And || where instanceof Or) {
+            Where[] conditions = where instanceof And ? ((And) where).getCondition() : ((Or) where).getCondition();
+            shape.add(conditions.length);
+            for (Where condition : conditions) {
+                if (!addShape(condition, shape, maxInlinedInValues)) {
+                    return false;
+                }
+            }
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    private static boolean sameJoins(Join[] joins1, Join[] joins2) {
+        if (joins1 == joins2) {
+            return true;
+        }
+        if (joins1 == null || joins2 == null || joins1.length != joins2.length) {
+            return false;
+        }
+
+        for (int i = 0; i < joins1.length; i++) {
+            Join join1 = joins1[i];
+            Join join2 = joins2[i];
+            if (join1.getType() != join2.getType()
+                    || join1.getInitialTable() != join2.getInitialTable()
+                    || join1.getAddedTable() != join2.getAddedTable()
+                    || !equals(join1.getInitialTableColumn(), join2.getInitialTableColumn())
+                    || !equals(join1.getAddedTableColumn(), join2.getAddedTableColumn())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameOrderBy(OrderBy[] orderBy1, OrderBy[] orderBy2) {
+        if (orderBy1 == orderBy2) {
+            return true;
+        }
+        if (orderBy1 == null || orderBy2 == null || orderBy1.length != orderBy2.length) {
+            return false;
+        }
+
+        for (int i = 0; i < orderBy1.length; i++) {
+            if (!equals(orderBy1[i].getField(), orderBy2[i].getField())
+                    || orderBy1[i].getOrder() != orderBy2[i].getOrder()
+                    || orderBy1[i].getCollate() != orderBy2[i].getCollate()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameLimit(Limit limit1, Limit limit2) {
+        if (limit1 == null || limit2 == null) {
+            return limit1 == limit2;
+        }
+        return limit1.getStart() == limit2.getStart() && limit1.getEnd() == limit2.getEnd();
+    }
+
+    private static boolean equals(@Nullable Object o1, @Nullable Object o2) {
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+}
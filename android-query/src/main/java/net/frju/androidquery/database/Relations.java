@@ -0,0 +1,105 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.NonNull;
+
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.function.CursorResult;
+import net.frju.androidquery.operation.function.Select;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Batched loading of the @Relation fields, used by the generated model descriptors
+ */
+public class Relations {
+
+    private Relations() {
+    }
+
+    /**
+     * Load the models related to the given ones, with one IN query per chunk of distinct keys
+     *
+     * @param dbModelDescriptor the description of the models
+     * @param models            the models whose related models are loaded
+     * @param localColumn       the column of the models referenced by the related models
+     * @param relatedClass      the class of the related models
+     * @param foreignColumn     the column of the related models which references the models
+     * @param resolver          the resolver
+     * @return for each model, at the same index, the list of its related models
+     */
+    @SuppressWarnings("unchecked")
+    public static
+    @NonNull
+    <T> List<T>[] load(@NonNull DbModelDescriptor dbModelDescriptor, @NonNull Object[] models, @NonNull String localColumn,
+                       @NonNull Class<T> relatedClass, @NonNull String foreignColumn, @NonNull Resolver resolver) {
+        Object[] keys = new Object[models.length];
+        // the keys are the values as bound (see ClauseHelper#getBindArg): 1 and 1L are the same INTEGER key,
+        // while the TEXT "1" stays another key like for SQLite
+        LinkedHashSet<Object> distinctKeys = new LinkedHashSet<>();
+        for (int i = 0; i < models.length; i++) {
+            keys[i] = getKey(getColumnValue(dbModelDescriptor, models[i], localColumn));
+            if (keys[i] != null) {
+                distinctKeys.add(keys[i]);
+            }
+        }
+
+        HashMap<Object, List<T>> relatedModelsByKey = new HashMap<>();
+        if (!distinctKeys.isEmpty()) {
+            DbModelDescriptor relatedDescriptor = resolver.getDbModelDescriptor(relatedClass);
+            DatabaseProvider relatedProvider = resolver.getDatabaseProviderForModel(relatedClass);
+            Object[] values = distinctKeys.toArray();
+
+            for (int start = 0; start < values.length; start += BaseLocalDatabaseProvider.MAX_SQL_VARIABLES) {
+                Object[] chunk = Arrays.copyOfRange(values, start, Math.min(start + BaseLocalDatabaseProvider.MAX_SQL_VARIABLES, values.length));
+
+                CursorResult<T> result = Select.getBuilder(relatedClass, relatedProvider)
+                        .where(Where.field(foreignColumn).isIn(chunk))
+                        .query();
+                try {
+                    for (T relatedModel : result) {
+                        Object key = getKey(getColumnValue(relatedDescriptor, relatedModel, foreignColumn));
+                        if (key != null) {
+                            List<T> relatedModels = relatedModelsByKey.get(key);
+                            if (relatedModels == null) {
+                                relatedModels = new ArrayList<>();
+                                relatedModelsByKey.put(key, relatedModels);
+                            }
+                            relatedModels.add(relatedModel);
+                        }
+                    }
+                } finally {
+                    if (result.getWrappedCursor() != null) {
+                        result.close();
+                    }
+                }
+            }
+        }
+
+        List<T>[] relatedModels = new List[models.length];
+        for (int i = 0; i < models.length; i++) {
+            List<T> modelRelatedModels = keys[i] != null ? relatedModelsByKey.get(keys[i]) : null;
+            // each model gets its own list, even if several of them share the same key
+            relatedModels[i] = modelRelatedModels != null ? new ArrayList<>(modelRelatedModels) : new ArrayList<T>();
+        }
+        return relatedModels;
+    }
+
+    private static Object getKey(Object value) {
+        return value != null ? ClauseHelper.getBindArg(value) : null;
+    }
+
+    /**
+     * @return the value of any column of the model, including an auto-incremented primary key
+     */
+    static Object getColumnValue(DbModelDescriptor dbModelDescriptor, Object model, String column) {
+        // an auto-incremented primary key is not part of the content values
+        if (column.equals(dbModelDescriptor.getPrimaryKeyDbName())) {
+            return dbModelDescriptor.getPrimaryKeyValue(model);
+        }
+        return dbModelDescriptor.getContentValues(model).get(column);
+    }
+}
@@ -0,0 +1,247 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.Nullable;
+
+import net.frju.androidquery.operation.condition.And;
+import net.frju.androidquery.operation.condition.Between;
+import net.frju.androidquery.operation.condition.Compare;
+import net.frju.androidquery.operation.condition.In;
+import net.frju.androidquery.operation.condition.Or;
+import net.frju.androidquery.operation.condition.Where;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites a where clause into an equivalent and simpler one before its SQL is generated: nested And/Or are flattened,
+ * the Or chains of equalities on a column become an IN, an IN of one value becomes an equality, the duplicate
+ * conditions are removed and the always true or false branches are folded.
+ * <p>
+ * The rewritten conditions only differ on NULL values, and a NULL condition is as false as a false one
+ * since there is no NOT operator on a group of conditions.
+ */
+public final class WhereNormalizer {
+
+    // the constant conditions, which only exist during the normalization
+    private static final Where TRUE = new Where() {
+    };
+    private static final Where FALSE = new Where() {
+    };
+
+    private WhereNormalizer() {
+    }
+
+    /**
+     * @return the normalized where clause, an empty array if it is always true, or the given one if it is always false
+     */
+    public static
+    @Nullable
+    Where[] normalize(@Nullable Where[] where) {
+        if (where == null || where.length == 0) {
+            return where;
+        } else if (where.length == 1 && !(where[0] instanceof And || where[0] instanceof Or || where[0] instanceof In)) {
+            // nothing to simplify in the most common case
+            return where;
+        }
+
+        Where result = normalizeAnd(where);
+        if (result == TRUE) {
+            return new Where[0];
+        } else if (result == FALSE) {
+            // there is nothing simpler to write it
+            return where;
+        } else if (result instanceof And) {
+            return ((And) result).getCondition();
+        }
+        return new Where[]{result};
+    }
+
+    private static Where normalize(Where where) {
+        if (where instanceof And) {
+            return normalizeAnd(((And) where).getCondition());
+        } else if (where instanceof Or) {
+            return normalizeOr(((Or) where).getCondition());
+        } else if (where instanceof In) {
+            return normalizeIn((In) where);
+        }
+        return where;
+    }
+
+    private static Where normalizeAnd(Where[] where) {
+        List<Where> conditions = new ArrayList<>(where.length);
+        for (Where item : where) {
+            Where condition = normalize(item);
+            if (condition == FALSE) {
+                return FALSE;
+            } else if (condition instanceof And) {
+                for (Where child : ((And) condition).getCondition()) {
+                    addIfNew(conditions, child);
+                }
+            } else if (condition != TRUE) {
+                addIfNew(conditions, condition);
+            }
+        }
+
+        if (conditions.isEmpty()) {
+            return TRUE;
+        } else if (conditions.size() == 1) {
+            return conditions.get(0);
+        }
+        return Where.combinesWithAnd(conditions.toArray(new Where[conditions.size()]));
+    }
+
+    private static Where normalizeOr(Where[] where) {
+        List<Where> conditions = new ArrayList<>(where.length);
+        for (Where item : where) {
+            Where condition = normalize(item);
+            if (condition == TRUE) {
+                return TRUE;
+            } else if (condition instanceof Or) {
+                for (Where child : ((Or) condition).getCondition()) {
+                    addIfNew(conditions, child);
+                }
+            } else if (condition != FALSE) {
+                addIfNew(conditions, condition);
+            }
+        }
+
+        mergeEqualities(conditions);
+
+        if (conditions.isEmpty()) {
+            return FALSE;
+        } else if (conditions.size() == 1) {
+            return conditions.get(0);
+        }
+        return Where.combinesWithOr(conditions.toArray(new Where[conditions.size()]));
+    }
+
+    private static Where normalizeIn(In in) {
+        Object[] values = in.getValues();
+        if (values.length == 0) {
+            return in.hasNot() ? TRUE : FALSE;
+        } else if (values.length == 1 && !in.hasNot() && values[0] != null) {
+            // NOT IN is not rewritten, since a NULL column IS NOT a value
+            return Where.field(in.getColumn()).isEqualTo(values[0]);
+        }
+        return in;
+    }
+
+    /**
+     * a IS 1 OR b > 2 OR a IN (3, 4) becomes a IN (1, 3, 4) OR b > 2
+     */
+    private static void mergeEqualities(List<Where> conditions) {
+        Map<String, List<Object>> valuesByColumn = new LinkedHashMap<>();
+        Map<String, Integer> countByColumn = new LinkedHashMap<>();
+        for (Where condition : conditions) {
+            String column = getEqualityColumn(condition);
+            if (column != null) {
+                Integer count = countByColumn.get(column);
+                countByColumn.put(column, count == null ? 1 : count + 1);
+            }
+        }
+
+        for (int i = 0; i < conditions.size(); i++) {
+            Where condition = conditions.get(i);
+            String column = getEqualityColumn(condition);
+            if (column == null || countByColumn.get(column) < 2) {
+                continue;
+            }
+
+            List<Object> values = valuesByColumn.get(column);
+            if (values == null) {
+                values = new ArrayList<>();
+                valuesByColumn.put(column, values);
+            }
+            if (condition instanceof In) {
+                values.addAll(Arrays.asList(((In) condition).getValues()));
+            } else {
+                values.add(((Compare) condition).getValue());
+            }
+
+            conditions.remove(i--);
+        }
+
+        for (Map.Entry<String, List<Object>> entry : valuesByColumn.entrySet()) {
+            conditions.add(Where.field(entry.getKey()).isIn(entry.getValue().toArray()));
+        }
+    }
+
+    /**
+     * @return the column of an equality to one or more values, null for the other conditions
+     */
+    private static String getEqualityColumn(Where where) {
+        if (where instanceof In && !((In) where).hasNot()) {
+            return ((In) where).getColumn();
+        } else if (where instanceof Compare) {
+            Compare compare = (Compare) where;
+            if (compare.getOperator() == Compare.Op.IS && compare.getValue() != null && !(compare.getValue() instanceof Where.Field)) {
+                return compare.getColumn();
+            }
+        }
+        return null;
+    }
+
+    private static void addIfNew(List<Where> conditions, Where condition) {
+        for (Where item : conditions) {
+            if (isSame(item, condition)) {
+                return;
+            }
+        }
+        conditions.add(condition);
+    }
+
+    private static boolean isSame(Where where1, Where where2) {
+        if (where1 == where2) {
+            return true;
+        }
+        if (where1.getClass() != where2.getClass()) {
+            return false;
+        }
+
+        if (where1 instanceof Compare) {
+            Compare compare1 = (Compare) where1;
+            Compare compare2 = (Compare) where2;
+            return compare1.getColumn().equals(compare2.getColumn()) && compare1.getOperator() == compare2.getOperator()
+                    && isSameValue(compare1.getValue(), compare2.getValue());
+        } else if (where1 instanceof In) {
+            In in1 = (In) where1;
+            In in2 = (In) where2;
+            return in1.getColumn().equals(in2.getColumn()) && in1.hasNot() == in2.hasNot()
+                    && Arrays.deepEquals(in1.getValues(), in2.getValues());
+        } else if (where1 instanceof Between) {
+            Between between1 = (Between) where1;
+            Between between2 = (Between) where2;
+            return between1.getColumn().equals(between2.getColumn()) && between1.hasNot() == between2.hasNot()
+                    && isSameValue(between1.getValue1(), between2.getValue1()) && isSameValue(between1.getValue2(), between2.getValue2());
+        } else if (where1 instanceof And) {
+            return isSame(((And) where1).getCondition(), ((And) where2).getCondition());
+        } else if (where1 instanceof Or) {
+            return isSame(((Or) where1).getCondition(), ((Or) where2).getCondition());
+        }
+        // a sub-query is only the same as itself
+        return false;
+    }
+
+    private static boolean isSame(Where[] where1, Where[] where2) {
+        if (where1.length != where2.length) {
+            return false;
+        }
+
+        for (int i = 0; i < where1.length; i++) {
+            if (!isSame(where1[i], where2[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameValue(Object value1, Object value2) {
+        if (value1 instanceof Where.Field && value2 instanceof Where.Field) {
+            return ((Where.Field) value1).getFieldDbName().equals(((Where.Field) value2).getFieldDbName());
+        }
+        return Arrays.deepEquals(new Object[]{value1}, new Object[]{value2});
+    }
+}
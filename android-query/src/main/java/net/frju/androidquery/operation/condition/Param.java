@@ -0,0 +1,26 @@
+package net.frju.androidquery.operation.condition;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A named placeholder, used as a value in the where clause of a prepared select and bound on each execution
+ */
+public final class Param {
+    private final String mName;
+
+    private Param(String name) {
+        mName = name;
+    }
+
+    public static
+    @NonNull
+    Param of(@NonNull String name) {
+        return new Param(name);
+    }
+
+    public
+    @NonNull
+    String getName() {
+        return mName;
+    }
+}
@@ -0,0 +1,40 @@
+package net.frju.androidquery.operation.condition;
+
+import net.frju.androidquery.operation.function.Select;
+
+/**
+ * A nested select, either the values of an IN operator or the operand of EXISTS
+ */
+public class SubQuery extends Where {
+    private final boolean mNot;
+    private final String mColumn;
+    private final Select.Builder<?> mSelect;
+
+    public boolean hasNot() {
+        return mNot;
+    }
+
+    /**
+     * @return the column of the IN operator, or null for EXISTS
+     */
+    public String getColumn() {
+        return mColumn;
+    }
+
+    public Select.Builder<?> getSelect() {
+        return mSelect;
+    }
+
+    /**
+     * Specifies a SQLite IN or EXISTS operator on a select
+     *
+     * @param not    true to do the negative
+     * @param column The column to perform the IN operation on, or null for EXISTS
+     * @param select The nested select, which must only return one column for IN
+     */
+    SubQuery(boolean not, String column, Select.Builder<?> select) {
+        mNot = not;
+        mColumn = column;
+        mSelect = select;
+    }
+}
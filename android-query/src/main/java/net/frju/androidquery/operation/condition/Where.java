@@ -15,6 +15,8 @@
  */
 package net.frju.androidquery.operation.condition;
 
+import net.frju.androidquery.operation.function.Select;
+
 /**
  * A Where isEqualTo used to provide an expressive api for querying the database.
  * @author Samuel Kirton [sam@memtrip.com]
@@ -28,6 +30,10 @@ public class Where {
             mFieldDbName = fieldDbName;
         }
 
+        public String getFieldDbName() {
+            return mFieldDbName;
+        }
+
         public Compare isTrue() {
             return new Compare(mFieldDbName, Compare.Op.IS, true);
         }
@@ -84,6 +90,39 @@ public class Where {
             return new In(true, mFieldDbName, values);
         }
 
+        /**
+         * @param select a select of only one column, run by SQLite in the same statement
+         */
+        public SubQuery isIn(Select.Builder<?> select) {
+            return new SubQuery(false, mFieldDbName, select);
+        }
+
+        /**
+         * @param select a select of only one column, run by SQLite in the same statement
+         */
+        public SubQuery isNotIn(Select.Builder<?> select) {
+            return new SubQuery(true, mFieldDbName, select);
+        }
+
+        /**
+         * Case sensitive prefix match, written as a range (x >= 'ab' AND x < 'ac') which can use an index, unlike LIKE
+         *
+         * @param prefix The prefix of the wanted values
+         */
+        public Where startsWith(String prefix) {
+            return getPrefixRange(this, prefix, false);
+        }
+
+        /**
+         * Same as startsWith(), but ignoring the case of the ASCII letters like LIKE does. Compared with the NOCASE
+         * collation, so it can use an index created with @DbField(index = true, indexCollation = "NOCASE")
+         *
+         * @param prefix The prefix of the wanted values
+         */
+        public Where startsWithIgnoreCase(String prefix) {
+            return getPrefixRange(new Field(mFieldDbName + " COLLATE NOCASE"), prefix, true);
+        }
+
         public Between isBetween(Object value1, Object value2) {
             return new Between(false, mFieldDbName, value1, value2);
         }
@@ -100,6 +139,18 @@ public class Where {
         return new Field(fieldDbName);
     }
 
+    /**
+     * @param select a select run by SQLite in the same statement, its where clause can compare
+     *               its columns to the ones of the outer query with isEqualTo(Where.field(...))
+     */
+    public static SubQuery exists(Select.Builder<?> select) {
+        return new SubQuery(false, null, select);
+    }
+
+    public static SubQuery notExists(Select.Builder<?> select) {
+        return new SubQuery(true, null, select);
+    }
+
     public static And combinesWithAnd(Where... where) {
         return new And(where);
     }
@@ -108,6 +159,53 @@ public class Where {
         return new Or(where);
     }
 
+    private static Where getPrefixRange(Field field, String prefix, boolean ignoreCase) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("The prefix cannot be null");
+        }
+
+        // NOCASE compares the lower case of the ASCII letters
+        String lowerBound = ignoreCase ? toLowerCaseAscii(prefix) : prefix;
+        String upperBound = getPrefixUpperBound(lowerBound, ignoreCase);
+        if (upperBound == null) {
+            return field.isGreaterThanOrEqualTo(lowerBound);
+        }
+        return field.isGreaterThanOrEqualTo(lowerBound).and(field.isLessThan(upperBound));
+    }
+
+    /**
+     * @return the smallest string greater than all the strings starting with the prefix, null if there is none
+     */
+    private static String getPrefixUpperBound(String prefix, boolean ignoreCase) {
+        int end = prefix.length();
+        while (end > 0) {
+            int codePoint = prefix.codePointBefore(end);
+            int length = Character.charCount(codePoint);
+            if (codePoint < Character.MAX_CODE_POINT) {
+                int next = codePoint + 1;
+                if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+                    next = Character.MAX_SURROGATE + 1;
+                } else if (ignoreCase && next >= 'A' && next <= 'Z') {
+                    // the upper case letters are compared as lower case ones, the next character is then '['
+                    next = '[';
+                }
+                return prefix.substring(0, end - length) + new String(Character.toChars(next));
+            }
+            end -= length;
+        }
+        return null;
+    }
+
+    private static String toLowerCaseAscii(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        return new String(chars);
+    }
+
     public And and(Where where) {
         return new And(this, where);
     }
@@ -0,0 +1,390 @@
+package net.frju.androidquery.operation.function;
+
+import android.support.annotation.NonNull;
+
+import net.frju.androidquery.database.DatabaseProvider;
+import net.frju.androidquery.database.Query;
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.keyword.Limit;
+import net.frju.androidquery.operation.keyword.OrderBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Single;
+
+/**
+ * Executes an aggregate query (count, sum, avg, min, max) computed by SQLite, optionally grouped
+ */
+public class Aggregate extends Query {
+    private final String[] mColumns;
+    private final Where[] mWhere;
+    private final String[] mGroupBy;
+    private final Where[] mHaving;
+    private final OrderBy[] mOrderBy;
+    private final Limit mLimit;
+
+    public String[] getColumns() {
+        return mColumns;
+    }
+
+    public Where[] getClause() {
+        return mWhere;
+    }
+
+    public String[] getGroupBy() {
+        return mGroupBy;
+    }
+
+    public Where[] getHaving() {
+        return mHaving;
+    }
+
+    public OrderBy[] getOrderBy() {
+        return mOrderBy;
+    }
+
+    public Limit getLimit() {
+        return mLimit;
+    }
+
+    private Aggregate(String[] columns, Where[] where, String[] groupBy, Where[] having, OrderBy[] orderBy, Limit limit) {
+        mColumns = columns;
+        mWhere = where;
+        mGroupBy = groupBy;
+        mHaving = having;
+        mOrderBy = orderBy;
+        mLimit = limit;
+    }
+
+    public static
+    @NonNull
+    <T> Aggregate.Builder getBuilder(@NonNull Class<T> classDef, @NonNull DatabaseProvider databaseProvider) {
+        return new Aggregate.Builder<>(classDef, databaseProvider);
+    }
+
+    public static class Builder<T> {
+        private final List<String> mColumns = new ArrayList<>();
+        private Where[] mWhere;
+        private String[] mGroupBy;
+        private Where[] mHaving;
+        private OrderBy[] mOrderBy;
+        private Limit mLimit;
+        private final Class<T> mClassDef;
+        private final DatabaseProvider mDatabaseProvider;
+
+        private Builder(@NonNull Class<T> classDef, @NonNull DatabaseProvider databaseProvider) {
+            mClassDef = classDef;
+            mDatabaseProvider = databaseProvider;
+        }
+
+        /**
+         * Specify a Compare where for the Aggregate query
+         * @param where Compare where
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> where(Where... where) {
+            mWhere = where;
+            return this;
+        }
+
+        /**
+         * Compute the aggregates for each distinct value of these columns, which are also part of the result
+         *
+         * @param columns The columns to group by
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> groupBy(@NonNull String... columns) {
+            mGroupBy = columns;
+            return this;
+        }
+
+        /**
+         * Filter the groups, the aggregates can be referenced by their alias
+         *
+         * @param having Compare where applied to the groups
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> having(Where... having) {
+            mHaving = having;
+            return this;
+        }
+
+        /**
+         * Order the groups by this column or aggregate alias ascendant values
+         *
+         * @param column The column or alias to use with the Order By clause
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> orderByAsc(@NonNull String column) {
+            addOrderBy(new OrderBy(column, OrderBy.Order.ASC));
+            return this;
+        }
+
+        /**
+         * Order the groups by this column or aggregate alias descendant values
+         *
+         * @param column The column or alias to use with the Order By clause
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> orderByDesc(@NonNull String column) {
+            addOrderBy(new OrderBy(column, OrderBy.Order.DESC));
+            return this;
+        }
+
+        /**
+         * Specify a Limit clause for the Aggregate query
+         *
+         * @param n The number of wanted groups
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> limit(int n) {
+            mLimit = new Limit(0, n);
+            return this;
+        }
+
+        /**
+         * Add the number of rows to the result
+         *
+         * @param alias The name of the result column
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> count(@NonNull String alias) {
+            mColumns.add("count(*) AS " + alias);
+            return this;
+        }
+
+        /**
+         * Add the number of distinct non-null values of the column to the result
+         *
+         * @param column The column to aggregate
+         * @param alias  The name of the result column
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> countDistinct(@NonNull String column, @NonNull String alias) {
+            mColumns.add("count(DISTINCT " + column + ") AS " + alias);
+            return this;
+        }
+
+        /**
+         * Add the sum of the column to the result, which is an integer if all the values are integers
+         *
+         * @param column The column to aggregate
+         * @param alias  The name of the result column
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> sum(@NonNull String column, @NonNull String alias) {
+            mColumns.add("sum(" + column + ") AS " + alias);
+            return this;
+        }
+
+        /**
+         * Add the average of the column to the result
+         *
+         * @param column The column to aggregate
+         * @param alias  The name of the result column
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> avg(@NonNull String column, @NonNull String alias) {
+            mColumns.add("avg(" + column + ") AS " + alias);
+            return this;
+        }
+
+        /**
+         * Add the minimum value of the column to the result
+         *
+         * @param column The column to aggregate
+         * @param alias  The name of the result column
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> min(@NonNull String column, @NonNull String alias) {
+            mColumns.add("min(" + column + ") AS " + alias);
+            return this;
+        }
+
+        /**
+         * Add the maximum value of the column to the result
+         *
+         * @param column The column to aggregate
+         * @param alias  The name of the result column
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> max(@NonNull String column, @NonNull String alias) {
+            mColumns.add("max(" + column + ") AS " + alias);
+            return this;
+        }
+
+        /**
+         * Execute the Aggregate query
+         *
+         * @return One row per group (only one without groupBy), with the groupBy columns followed by the aggregates
+         */
+        public
+        @NonNull
+        ColumnarResult query() {
+            List<String> columns = new ArrayList<>();
+            if (mGroupBy != null) {
+                columns.addAll(Arrays.asList(mGroupBy));
+            }
+            columns.addAll(mColumns);
+
+            if (columns.isEmpty()) {
+                throw new IllegalStateException("An aggregate query requires at least one aggregate");
+            }
+
+            return aggregate(
+                    new Aggregate(columns.toArray(new String[columns.size()]), mWhere, mGroupBy, mHaving, mOrderBy, mLimit),
+                    mClassDef,
+                    mDatabaseProvider
+            );
+        }
+
+        /**
+         * Execute a query computing the number of distinct non-null values of the column
+         *
+         * @param column The column to aggregate
+         * @return The number of distinct values
+         */
+        public long queryCountDistinct(@NonNull String column) {
+            Number value = queryValue("count(DISTINCT " + column + ")");
+            return value != null ? value.longValue() : 0;
+        }
+
+        /**
+         * Execute a query computing the sum of the column
+         *
+         * @param column The column to aggregate
+         * @return The sum, or 0 if there is no value
+         */
+        public double querySum(@NonNull String column) {
+            Number value = queryValue("sum(" + column + ")");
+            return value != null ? value.doubleValue() : 0;
+        }
+
+        /**
+         * Execute a query computing the sum of an integer column, without floating point rounding
+         *
+         * @param column The column to aggregate
+         * @return The sum, or 0 if there is no value
+         */
+        public long querySumLong(@NonNull String column) {
+            Number value = queryValue("sum(" + column + ")");
+            return value != null ? value.longValue() : 0;
+        }
+
+        /**
+         * Execute a query computing the average of the column
+         *
+         * @param column The column to aggregate
+         * @return The average, or NaN if there is no value
+         */
+        public double queryAvg(@NonNull String column) {
+            Number value = queryValue("avg(" + column + ")");
+            return value != null ? value.doubleValue() : Double.NaN;
+        }
+
+        /**
+         * Execute a query computing the minimum value of the column
+         *
+         * @param column The column to aggregate
+         * @return The minimum, or NaN if there is no value
+         */
+        public double queryMin(@NonNull String column) {
+            Number value = queryValue("min(" + column + ")");
+            return value != null ? value.doubleValue() : Double.NaN;
+        }
+
+        /**
+         * Execute a query computing the maximum value of the column
+         *
+         * @param column The column to aggregate
+         * @return The maximum, or NaN if there is no value
+         */
+        public double queryMax(@NonNull String column) {
+            Number value = queryValue("max(" + column + ")");
+            return value != null ? value.doubleValue() : Double.NaN;
+        }
+
+        /**
+         * Execute the Aggregate query
+         *
+         * @return An RxJava Observable
+         */
+        public
+        @NonNull
+        rx.Single<ColumnarResult> rx() {
+            return wrapRx(new Callable<ColumnarResult>() {
+                @Override
+                public ColumnarResult call() throws Exception {
+                    return query();
+                }
+            });
+        }
+
+        /**
+         * Execute the Aggregate query
+         *
+         * @return An RxJava2 Observable
+         */
+        public
+        @NonNull
+        Single<ColumnarResult> rx2() {
+            return wrapRx2(new Callable<ColumnarResult>() {
+                @Override
+                public ColumnarResult call() throws Exception {
+                    return query();
+                }
+            });
+        }
+
+        private Number queryValue(String column) {
+            if (mGroupBy != null) {
+                throw new IllegalStateException("Use query() to get the aggregates of each group");
+            }
+
+            ColumnarResult result = aggregate(
+                    new Aggregate(new String[]{column}, mWhere, null, null, null, null),
+                    mClassDef,
+                    mDatabaseProvider
+            );
+
+            // NULL when there is no value to aggregate
+            return result.size() > 0 ? (Number) result.getObjects(0)[0] : null;
+        }
+
+        private void addOrderBy(OrderBy orderBy) {
+            if (mOrderBy == null) {
+                mOrderBy = new OrderBy[]{orderBy};
+            } else {
+                mOrderBy = Arrays.copyOf(mOrderBy, mOrderBy.length + 1);
+                mOrderBy[mOrderBy.length - 1] = orderBy;
+            }
+        }
+    }
+}
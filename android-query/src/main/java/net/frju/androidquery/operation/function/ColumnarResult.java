@@ -0,0 +1,313 @@
+package net.frju.androidquery.operation.function;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Values of some columns read without creating any model, stored in one array per column.
+ * Integer and real columns are backed by long[] and double[] arrays (NULL values are read as 0 there,
+ * use isNull() or getObjects() to tell them apart), text and blob columns by Object[] arrays.
+ */
+public class ColumnarResult {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_LONG = 1;
+    private static final int TYPE_DOUBLE = 2;
+    private static final int TYPE_OBJECT = 3;
+
+    private final String[] mColumnNames;
+    private final int[] mTypes;
+    private final Object[] mArrays;
+    // the rows with a NULL value, null for the columns without any
+    private final BitSet[] mNulls;
+    private int mSize;
+    private int mCapacity;
+
+    /**
+     * Read all the rows of the cursor, then close it
+     *
+     * @param cursor the cursor to read from
+     */
+    public ColumnarResult(@Nullable Cursor cursor) {
+        if (cursor == null) {
+            mColumnNames = new String[0];
+            mTypes = new int[0];
+            mArrays = new Object[0];
+            mNulls = new BitSet[0];
+            return;
+        }
+
+        try {
+            mColumnNames = cursor.getColumnNames();
+            mTypes = new int[mColumnNames.length];
+            mArrays = new Object[mColumnNames.length];
+            mNulls = new BitSet[mColumnNames.length];
+
+            // The size is unknown until the end, the arrays grow as the rows are read
+            while (cursor.moveToNext()) {
+                if (mSize == mCapacity) {
+                    resize(mCapacity == 0 ? INITIAL_CAPACITY : mCapacity * 2);
+                }
+
+                for (int x = 0; x < mColumnNames.length; x++) {
+                    readValue(cursor, x);
+                }
+
+                mSize++;
+            }
+
+            resize(mSize);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public
+    @NonNull
+    String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    public
+    @NonNull
+    long[] getLongs(@NonNull String columnName) {
+        return getLongs(getColumnIndex(columnName));
+    }
+
+    public
+    @NonNull
+    long[] getLongs(int columnIndex) {
+        switch (mTypes[columnIndex]) {
+            case TYPE_LONG:
+                return (long[]) mArrays[columnIndex];
+            case TYPE_DOUBLE:
+                double[] doubles = (double[]) mArrays[columnIndex];
+                long[] longs = new long[mSize];
+                for (int i = 0; i < mSize; i++) {
+                    longs[i] = (long) doubles[i];
+                }
+                return longs;
+            case TYPE_NULL:
+                return new long[mSize];
+            default:
+                throw new IllegalStateException("The column " + mColumnNames[columnIndex] + " does not only contain numbers");
+        }
+    }
+
+    public
+    @NonNull
+    int[] getInts(@NonNull String columnName) {
+        return getInts(getColumnIndex(columnName));
+    }
+
+    public
+    @NonNull
+    int[] getInts(int columnIndex) {
+        long[] longs = getLongs(columnIndex);
+        int[] ints = new int[mSize];
+        for (int i = 0; i < mSize; i++) {
+            ints[i] = (int) longs[i];
+        }
+        return ints;
+    }
+
+    public
+    @NonNull
+    double[] getDoubles(@NonNull String columnName) {
+        return getDoubles(getColumnIndex(columnName));
+    }
+
+    public
+    @NonNull
+    double[] getDoubles(int columnIndex) {
+        switch (mTypes[columnIndex]) {
+            case TYPE_DOUBLE:
+                return (double[]) mArrays[columnIndex];
+            case TYPE_LONG:
+                long[] longs = (long[]) mArrays[columnIndex];
+                double[] doubles = new double[mSize];
+                for (int i = 0; i < mSize; i++) {
+                    doubles[i] = longs[i];
+                }
+                return doubles;
+            case TYPE_NULL:
+                return new double[mSize];
+            default:
+                throw new IllegalStateException("The column " + mColumnNames[columnIndex] + " does not only contain numbers");
+        }
+    }
+
+    /**
+     * @return true if the value of the column is NULL for that row
+     */
+    public boolean isNull(@NonNull String columnName, int row) {
+        return isNull(getColumnIndex(columnName), row);
+    }
+
+    public boolean isNull(int columnIndex, int row) {
+        if (row < 0 || row >= mSize) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + mSize);
+        }
+        return isNullValue(columnIndex, row);
+    }
+
+    /**
+     * @return the values of the column, boxed if needed (String, byte[], Long or Double), null for the NULL values
+     */
+    public
+    @NonNull
+    Object[] getObjects(@NonNull String columnName) {
+        return getObjects(getColumnIndex(columnName));
+    }
+
+    public
+    @NonNull
+    Object[] getObjects(int columnIndex) {
+        if (mTypes[columnIndex] == TYPE_OBJECT) {
+            return (Object[]) mArrays[columnIndex];
+        }
+
+        return toObjects(columnIndex, mSize);
+    }
+
+    public int getColumnIndex(@NonNull String columnName) {
+        for (int x = 0; x < mColumnNames.length; x++) {
+            if (mColumnNames[x].equals(columnName)) {
+                return x;
+            }
+        }
+
+        throw new IllegalArgumentException("The column " + columnName + " is not part of the result");
+    }
+
+    private void readValue(Cursor cursor, int x) {
+        switch (cursor.getType(x)) {
+            case Cursor.FIELD_TYPE_NULL:
+                // arrays are already filled with 0 or null, but 0 is also a valid number
+                if (mNulls[x] == null) {
+                    mNulls[x] = new BitSet();
+                }
+                mNulls[x].set(mSize);
+                break;
+            case Cursor.FIELD_TYPE_INTEGER:
+                if (mTypes[x] == TYPE_NULL) {
+                    setType(x, TYPE_LONG);
+                }
+
+                if (mTypes[x] == TYPE_LONG) {
+                    ((long[]) mArrays[x])[mSize] = cursor.getLong(x);
+                } else if (mTypes[x] == TYPE_DOUBLE) {
+                    ((double[]) mArrays[x])[mSize] = cursor.getLong(x);
+                } else {
+                    ((Object[]) mArrays[x])[mSize] = cursor.getLong(x);
+                }
+                break;
+            case Cursor.FIELD_TYPE_FLOAT:
+                if (mTypes[x] == TYPE_NULL || mTypes[x] == TYPE_LONG) {
+                    setType(x, TYPE_DOUBLE);
+                }
+
+                if (mTypes[x] == TYPE_DOUBLE) {
+                    ((double[]) mArrays[x])[mSize] = cursor.getDouble(x);
+                } else {
+                    ((Object[]) mArrays[x])[mSize] = cursor.getDouble(x);
+                }
+                break;
+            case Cursor.FIELD_TYPE_BLOB:
+                setType(x, TYPE_OBJECT);
+                ((Object[]) mArrays[x])[mSize] = cursor.getBlob(x);
+                break;
+            default:
+                setType(x, TYPE_OBJECT);
+                ((Object[]) mArrays[x])[mSize] = cursor.getString(x);
+                break;
+        }
+    }
+
+    /**
+     * Change the storage of a column, converting the values already read
+     */
+    private void setType(int x, int type) {
+        if (mTypes[x] == type) {
+            return;
+        }
+
+        switch (type) {
+            case TYPE_LONG:
+                mArrays[x] = new long[mCapacity];
+                break;
+            case TYPE_DOUBLE:
+                double[] doubles = new double[mCapacity];
+                if (mTypes[x] == TYPE_LONG) {
+                    long[] longs = (long[]) mArrays[x];
+                    for (int i = 0; i < mSize; i++) {
+                        doubles[i] = longs[i];
+                    }
+                }
+                mArrays[x] = doubles;
+                break;
+            default:
+                mArrays[x] = toObjects(x, mCapacity);
+                break;
+        }
+
+        mTypes[x] = type;
+    }
+
+    private Object[] toObjects(int x, int capacity) {
+        Object[] objects = new Object[capacity];
+        switch (mTypes[x]) {
+            case TYPE_LONG:
+                long[] longs = (long[]) mArrays[x];
+                for (int i = 0; i < mSize; i++) {
+                    objects[i] = isNullValue(x, i) ? null : longs[i];
+                }
+                break;
+            case TYPE_DOUBLE:
+                double[] doubles = (double[]) mArrays[x];
+                for (int i = 0; i < mSize; i++) {
+                    objects[i] = isNullValue(x, i) ? null : doubles[i];
+                }
+                break;
+            case TYPE_OBJECT:
+                System.arraycopy(mArrays[x], 0, objects, 0, mSize);
+                break;
+        }
+        return objects;
+    }
+
+    private boolean isNullValue(int x, int row) {
+        return mNulls[x] != null && mNulls[x].get(row);
+    }
+
+    private void resize(int capacity) {
+        mCapacity = capacity;
+
+        for (int x = 0; x < mArrays.length; x++) {
+            switch (mTypes[x]) {
+                case TYPE_LONG:
+                    mArrays[x] = Arrays.copyOf((long[]) mArrays[x], capacity);
+                    break;
+                case TYPE_DOUBLE:
+                    mArrays[x] = Arrays.copyOf((double[]) mArrays[x], capacity);
+                    break;
+                case TYPE_OBJECT:
+                    mArrays[x] = Arrays.copyOf((Object[]) mArrays[x], capacity);
+                    break;
+            }
+        }
+    }
+}
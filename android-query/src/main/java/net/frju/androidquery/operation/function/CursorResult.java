@@ -6,6 +6,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import net.frju.androidquery.database.DbModelDescriptor;
+import net.frju.androidquery.database.IdentityMap;
 import net.frju.androidquery.database.Resolver;
 
 import java.util.ArrayList;
@@ -34,29 +35,38 @@ public class CursorResult<T> extends CursorWrapper implements Iterable<T> {
     }
 
     private final DbModelDescriptor mQuery;
+    private final IdentityMap mIdentityMap;
 
     public CursorResult(@NonNull Class<T> type, @NonNull Resolver resolver, Cursor cursor) {
+        this(type, resolver, cursor, null);
+    }
+
+    /**
+     * @param identityMap the identity map used to read the models, or null to always create new instances
+     */
+    public CursorResult(@NonNull Class<T> type, @NonNull Resolver resolver, Cursor cursor, @Nullable IdentityMap identityMap) {
         super(cursor);
         mQuery = resolver.getDbModelDescriptor(type);
+        mIdentityMap = identityMap;
     }
 
     public
     @Nullable
     T get() {
-        return mQuery.getSingleResult(this);
+        return mQuery.getSingleResult(this, mIdentityMap);
     }
 
     public
     @Nullable
     T get(int position) {
         moveToPosition(position);
-        return mQuery.getSingleResult(this);
+        return mQuery.getSingleResult(this, mIdentityMap);
     }
 
     public
     @NonNull
     T[] toArray() {
-        return mQuery.getArrayResult(this);
+        return mQuery.getArrayResult(this, mIdentityMap);
     }
 
     public
@@ -33,6 +33,7 @@ import io.reactivex.Single;
 public class Delete extends Query {
     private Object[] mModels;
     private Where[] mWheres;
+    private final boolean mNotifyChange;
 
     public Object[] getModels() {
         return mModels;
@@ -42,12 +43,18 @@ public class Delete extends Query {
         return mWheres;
     }
 
-    private Delete(Object[] models) {
+    public boolean shouldNotifyChange() {
+        return mNotifyChange;
+    }
+
+    private Delete(Object[] models, boolean notifyChange) {
         mModels = models;
+        mNotifyChange = notifyChange;
     }
 
-    private Delete(Where[] wheres) {
+    private Delete(Where[] wheres, boolean notifyChange) {
         mWheres = wheres;
+        mNotifyChange = notifyChange;
     }
 
     public static
@@ -59,6 +66,7 @@ public class Delete extends Query {
     public static class Builder<T> {
         private T[] mModels;
         private Where[] mWhere;
+        private boolean mNotifyChange = true;
         private final Class<T> mClassDef;
         private final DatabaseProvider mDatabaseProvider;
 
@@ -106,6 +114,19 @@ public class Delete extends Query {
             return this;
         }
 
+        /**
+         * Disable the change notification, which can be useful for bulk loads
+         *
+         * @param notifyChange false to not notify the observers of that table. By default it's true.
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Delete.Builder<T> withChangeNotification(boolean notifyChange) {
+            mNotifyChange = notifyChange;
+            return this;
+        }
+
         /**
          * Executes a Delete query
          * @return The rows affected by the Delete query
@@ -113,13 +134,13 @@ public class Delete extends Query {
         public int query() {
             if (mModels != null) {
                 return delete(
-                        new Delete(mModels),
+                        new Delete(mModels, mNotifyChange),
                         mClassDef,
                         mDatabaseProvider
                 );
             } else {
                 return delete(
-                        new Delete(mWhere),
+                        new Delete(mWhere, mNotifyChange),
                         mClassDef,
                         mDatabaseProvider
                 );
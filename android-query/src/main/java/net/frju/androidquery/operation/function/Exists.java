@@ -0,0 +1,98 @@
+package net.frju.androidquery.operation.function;
+
+import android.support.annotation.NonNull;
+
+import net.frju.androidquery.database.DatabaseProvider;
+import net.frju.androidquery.database.Query;
+import net.frju.androidquery.operation.condition.Where;
+
+import java.util.concurrent.Callable;
+
+import io.reactivex.Single;
+
+/**
+ * Checks whether at least one row matches, without counting all of them
+ */
+public class Exists extends Query {
+    private final Where[] mWhere;
+
+    public Where[] getClause() {
+        return mWhere;
+    }
+
+    private Exists(Where[] where) {
+        mWhere = where;
+    }
+
+    public static
+    @NonNull
+    <T> Exists.Builder getBuilder(@NonNull Class<T> classDef, @NonNull DatabaseProvider databaseProvider) {
+        return new Exists.Builder<>(classDef, databaseProvider);
+    }
+
+    public static class Builder<T> {
+        private Where[] mWhere;
+        private final Class<T> mClassDef;
+        private final DatabaseProvider mDatabaseProvider;
+
+        private Builder(@NonNull Class<T> classDef, @NonNull DatabaseProvider databaseProvider) {
+            mClassDef = classDef;
+            mDatabaseProvider = databaseProvider;
+        }
+
+        /**
+         * Specify a Compare where for the Exists query
+         * @param where Compare where
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> where(Where... where) {
+            mWhere = where;
+            return this;
+        }
+
+        /**
+         * Execute an Exists query
+         * @return True if at least one row matches the where clause
+         */
+        public boolean query() {
+            return exists(
+                    new Exists(mWhere),
+                    mClassDef,
+                    mDatabaseProvider
+            );
+        }
+
+        /**
+         * Execute an Exists query
+         * @return An RxJava Observable
+         */
+        public
+        @NonNull
+        rx.Single<Boolean> rx() {
+            return wrapRx(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return query();
+                }
+            });
+        }
+
+        /**
+         * Execute an Exists query
+         *
+         * @return An RxJava2 Observable
+         */
+        public
+        @NonNull
+        Single<Boolean> rx2() {
+            return wrapRx2(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return query();
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
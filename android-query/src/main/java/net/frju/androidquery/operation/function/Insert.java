@@ -32,6 +32,7 @@ import io.reactivex.Single;
 public class Insert extends Query {
     private final Object[] mModels;
     private final ConflictResolution mConflictResolution;
+    private final boolean mNotifyChange;
 
     public Object[] getModels() {
         return mModels;
@@ -41,8 +42,13 @@ public class Insert extends Query {
         return mConflictResolution;
     }
 
-    private Insert(ConflictResolution conflictResolution, Object... models) {
+    public boolean shouldNotifyChange() {
+        return mNotifyChange;
+    }
+
+    private Insert(ConflictResolution conflictResolution, boolean notifyChange, Object... models) {
         mConflictResolution = conflictResolution;
+        mNotifyChange = notifyChange;
         mModels = models;
     }
 
@@ -63,6 +69,7 @@ public class Insert extends Query {
     public static class Builder<T> {
         private final T[] mModels;
         private ConflictResolution mConflictResolution = ConflictResolution.CONFLICT_IGNORE;
+        private boolean mNotifyChange = true;
         private final DatabaseProvider mDatabaseProvider;
 
         @SafeVarargs
@@ -82,13 +89,26 @@ public class Insert extends Query {
             return this;
         }
 
+        /**
+         * Disable the change notification, which can be useful for bulk loads
+         *
+         * @param notifyChange false to not notify the observers of that table. By default it's true.
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Insert.Builder<T> withChangeNotification(boolean notifyChange) {
+            mNotifyChange = notifyChange;
+            return this;
+        }
+
         /**
          * Executes an Insert query
          * @return the number of inserted items
          */
         public int query() {
             return insert(
-                    new Insert(mConflictResolution, mModels),
+                    new Insert(mConflictResolution, mNotifyChange, mModels),
                     mModels != null && mModels.length > 0 ? mModels[0].getClass() : Object.class,
                     mDatabaseProvider
             );
@@ -0,0 +1,39 @@
+package net.frju.androidquery.operation.function;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * A page of a keyset pagination, which carries the key to use to get the next one
+ */
+public class Page<T> {
+    private final List<T> mItems;
+    private final Object[] mNextKey;
+
+    public Page(@NonNull List<T> items, @Nullable Object[] nextKey) {
+        mItems = items;
+        mNextKey = nextKey;
+    }
+
+    public
+    @NonNull
+    List<T> getItems() {
+        return mItems;
+    }
+
+    /**
+     * @return the values of the orderBy columns of the last item, to give to Builder#queryPageAfter,
+     * or null if this is the last page
+     */
+    public
+    @Nullable
+    Object[] getNextKey() {
+        return mNextKey;
+    }
+
+    public boolean hasNext() {
+        return mNextKey != null;
+    }
+}
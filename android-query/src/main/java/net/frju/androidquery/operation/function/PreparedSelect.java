@@ -0,0 +1,101 @@
+package net.frju.androidquery.operation.function;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import net.frju.androidquery.database.DatabaseProvider;
+import net.frju.androidquery.database.Query;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A Select query whose SQL is built once, see Select.Builder#prepare. Each execution only binds the values
+ * of the Param placeholders of its where clause. It is immutable and can be shared between threads.
+ */
+public class PreparedSelect<T> extends Query {
+    private final Class<T> mClassDef;
+    private final DatabaseProvider mDatabaseProvider;
+    private final String mSql;
+    private final Object[] mArgs;
+    private final String[] mTables;
+
+    PreparedSelect(@NonNull Class<T> classDef, @NonNull DatabaseProvider databaseProvider, @NonNull String sql,
+                   @NonNull Object[] args, @NonNull String[] tables) {
+        mClassDef = classDef;
+        mDatabaseProvider = databaseProvider;
+        mSql = sql;
+        mArgs = args;
+        mTables = tables;
+    }
+
+    /**
+     * @return the SQL of the select, with a ? placeholder for each of its arguments
+     */
+    public
+    @NonNull
+    String getSql() {
+        return mSql;
+    }
+
+    /**
+     * Executes the Select query
+     *
+     * @param params The value of each Param of the where clause, by name
+     * @return The rows returned by the Select query
+     */
+    public
+    @NonNull
+    CursorResult<T> query(@NonNull Map<String, ?> params) {
+        return selectPrepared(mClassDef, mDatabaseProvider, mSql, mArgs, mTables, params);
+    }
+
+    /**
+     * Executes a Select query with only one Param
+     *
+     * @param name  The name of the Param
+     * @param value Its value
+     * @return The rows returned by the Select query
+     */
+    public
+    @NonNull
+    CursorResult<T> query(@NonNull String name, @Nullable Object value) {
+        return query(Collections.singletonMap(name, value));
+    }
+
+    /**
+     * Executes the Select query, without any Param
+     *
+     * @return The rows returned by the Select query
+     */
+    public
+    @NonNull
+    CursorResult<T> query() {
+        return query(Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Executes a Select query that expects a single result
+     *
+     * @param params The value of each Param of the where clause, by name
+     * @return The row returned by the Select query or null
+     */
+    public
+    @Nullable
+    T queryFirst(@NonNull Map<String, ?> params) {
+        return selectFirstPrepared(mClassDef, mDatabaseProvider, mSql, mArgs, mTables, params);
+    }
+
+    /**
+     * Executes a Select query with only one Param that expects a single result
+     *
+     * @param name  The name of the Param
+     * @param value Its value
+     * @return The row returned by the Select query or null
+     */
+    public
+    @Nullable
+    T queryFirst(@NonNull String name, @Nullable Object value) {
+        return queryFirst(Collections.singletonMap(name, value));
+    }
+}
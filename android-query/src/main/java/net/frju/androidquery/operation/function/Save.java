@@ -17,6 +17,7 @@ import io.reactivex.Single;
 public class Save extends Query {
     private final Object[] mModels;
     private final ConflictResolution mConflictResolution;
+    private final boolean mNotifyChange;
 
     public Object[] getModels() {
         return mModels;
@@ -26,8 +27,13 @@ public class Save extends Query {
         return mConflictResolution;
     }
 
-    private Save(ConflictResolution conflictResolution, Object... models) {
+    public boolean shouldNotifyChange() {
+        return mNotifyChange;
+    }
+
+    private Save(ConflictResolution conflictResolution, boolean notifyChange, Object... models) {
         mConflictResolution = conflictResolution;
+        mNotifyChange = notifyChange;
         mModels = models;
     }
 
@@ -48,6 +54,7 @@ public class Save extends Query {
     public static class Builder<T> {
         private final T[] mModels;
         private ConflictResolution mConflictResolution = ConflictResolution.CONFLICT_IGNORE;
+        private boolean mNotifyChange = true;
         private final DatabaseProvider mDatabaseProvider;
 
         @SafeVarargs
@@ -67,13 +74,26 @@ public class Save extends Query {
             return this;
         }
 
+        /**
+         * Disable the change notification, which can be useful for bulk loads
+         *
+         * @param notifyChange false to not notify the observers of that table. By default it's true.
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Save.Builder<T> withChangeNotification(boolean notifyChange) {
+            mNotifyChange = notifyChange;
+            return this;
+        }
+
         /**
          * Executes an Save query
          * @return the number of inserted or updated items
          */
         public int query() {
             return save(
-                    new Save(mConflictResolution, mModels),
+                    new Save(mConflictResolution, mNotifyChange, mModels),
                     mModels != null && mModels.length > 0 ? mModels[0].getClass() : Object.class,
                     mDatabaseProvider
             );
@@ -18,7 +18,9 @@ package net.frju.androidquery.operation.function;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import net.frju.androidquery.database.BaseLocalDatabaseProvider;
 import net.frju.androidquery.database.DatabaseProvider;
+import net.frju.androidquery.database.IdentityMap;
 import net.frju.androidquery.database.Query;
 import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.join.Join;
@@ -35,10 +37,16 @@ import io.reactivex.Single;
  * @author Samuel Kirton [sam@memtrip.com]
  */
 public class Select extends Query {
+    private final String[] mFields;
     private final Where[] mWhere;
     private final Join[] mJoins;
     private final OrderBy[] mOrderBy;
     private final Limit mLimit;
+    private final IdentityMap mIdentityMap;
+
+    public String[] getFields() {
+        return mFields;
+    }
 
     public Where[] getClause() {
         return mWhere;
@@ -56,11 +64,17 @@ public class Select extends Query {
         return mLimit;
     }
 
-    private Select(Where[] where, Join[] join, OrderBy[] orderBy, Limit limit) {
+    public IdentityMap getIdentityMap() {
+        return mIdentityMap;
+    }
+
+    private Select(String[] fields, Where[] where, Join[] join, OrderBy[] orderBy, Limit limit, IdentityMap identityMap) {
+        mFields = fields;
         mWhere = where;
         mJoins = join;
         mOrderBy = orderBy;
         mLimit = limit;
+        mIdentityMap = identityMap;
     }
 
     public static
@@ -70,10 +84,15 @@ public class Select extends Query {
     }
 
     public static class Builder<T> {
+        private static final int DEFAULT_STREAM_CHUNK_SIZE = 256;
+
+        private String[] mFields;
         private Where[] mWhere;
         private Join[] mJoins;
         private OrderBy[] mOrderBy;
         private Limit mLimit;
+        private IdentityMap mIdentityMap;
+        private boolean mNewIdentityMap;
         private final Class<T> mClassDef;
         private final DatabaseProvider mDatabaseProvider;
 
@@ -82,6 +101,19 @@ public class Select extends Query {
             mDatabaseProvider = databaseProvider;
         }
 
+        /**
+         * Only fetch these columns of the model table, the other fields of the returned models are left to their default value
+         *
+         * @param fields The columns to fetch, by default all the columns are fetched
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> fields(String... fields) {
+            mFields = fields;
+            return this;
+        }
+
         /**
          * Specify a Compare where for the Select query
          * @param where Compare where
@@ -190,6 +222,35 @@ public class Select extends Query {
             return this;
         }
 
+        /**
+         * Map the rows representing the same entity (same class and primary key) to the same instance,
+         * for the joined models too. The init methods of queryAndInit are then run once per instance.
+         * Not used by stream().
+         *
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> withIdentityMap() {
+            mNewIdentityMap = true;
+            mIdentityMap = null;
+            return this;
+        }
+
+        /**
+         * Same as withIdentityMap(), but sharing the instances with the other queries using that identity map
+         *
+         * @param identityMap The identity map of the unit of work
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> withIdentityMap(@NonNull IdentityMap identityMap) {
+            mNewIdentityMap = false;
+            mIdentityMap = identityMap;
+            return this;
+        }
+
         /**
          * Executes a Select query
          * @return The rows returned by the Select query
@@ -198,12 +259,147 @@ public class Select extends Query {
         @NonNull
         CursorResult<T> query() {
             return select(
-                    new Select(mWhere, mJoins, mOrderBy, mLimit),
+                    new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, getIdentityMap()),
+                    mClassDef,
+                    mDatabaseProvider
+            );
+        }
+
+        /**
+         * Executes a Select query which reads the rows chunk by chunk, in rowid order.
+         * Does not support joins, orderBy or limit.
+         *
+         * @return The forward-only rows returned by the Select query, to close if not fully iterated
+         */
+        public
+        @NonNull
+        StreamResult<T> stream() {
+            return stream(DEFAULT_STREAM_CHUNK_SIZE);
+        }
+
+        /**
+         * Executes a Select query which reads the rows chunk by chunk, in rowid order.
+         * Does not support joins, orderBy or limit.
+         *
+         * @param chunkSize The number of rows loaded at once
+         * @return The forward-only rows returned by the Select query, to close if not fully iterated
+         */
+        public
+        @NonNull
+        StreamResult<T> stream(int chunkSize) {
+            return selectStream(
+                    new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, null),
+                    mClassDef,
+                    mDatabaseProvider,
+                    chunkSize
+            );
+        }
+
+        /**
+         * Executes a Select query returning the first page of a keyset pagination. It requires an orderBy,
+         * to which the primary key is added if needed to get a total order.
+         *
+         * @param pageSize The maximum number of items of the page
+         * @return The page, with the key to use to get the next one
+         */
+        public
+        @NonNull
+        Page<T> queryPage(int pageSize) {
+            return queryPageAfter((Object[]) null, pageSize);
+        }
+
+        /**
+         * Executes a Select query returning the page which follows the given key, without scanning the previous
+         * rows like an offset would do: WHERE (a, b) > (?, ?) ORDER BY a, b LIMIT n
+         *
+         * @param key      The values of the orderBy columns of the last item of the previous page, see Page#getNextKey
+         * @param pageSize The maximum number of items of the page
+         * @return The page, with the key to use to get the next one
+         */
+        public
+        @NonNull
+        Page<T> queryPageAfter(@Nullable Object[] key, int pageSize) {
+            return selectPage(
+                    new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, getIdentityMap()),
+                    mClassDef,
+                    mDatabaseProvider,
+                    key,
+                    pageSize
+            );
+        }
+
+        /**
+         * Executes a Select query returning the page which follows the given model
+         *
+         * @param model    The last item of the previous page
+         * @param pageSize The maximum number of items of the page
+         * @return The page, with the key to use to get the next one
+         */
+        public
+        @NonNull
+        Page<T> queryPageAfterModel(@NonNull T model, int pageSize) {
+            Select select = new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, getIdentityMap());
+            return selectPage(
+                    select,
+                    mClassDef,
+                    mDatabaseProvider,
+                    getPageKey(select, mClassDef, mDatabaseProvider, model),
+                    pageSize
+            );
+        }
+
+        /**
+         * Executes a Select query which only reads the given columns, without creating any model
+         *
+         * @param columns The columns to read
+         * @return The values of the columns, backed by one array per column
+         */
+        public
+        @NonNull
+        ColumnarResult pluckColumns(@NonNull String... columns) {
+            return pluck(
+                    new Select(columns, mWhere, mJoins, mOrderBy, mLimit, null),
                     mClassDef,
                     mDatabaseProvider
             );
         }
 
+        /**
+         * Executes a Select query which only reads the given column, without creating any model
+         *
+         * @param column The column to read
+         * @return The values of the column, NULL values are read as 0
+         */
+        public
+        @NonNull
+        long[] pluckLongs(@NonNull String column) {
+            return pluckColumns(column).getLongs(0);
+        }
+
+        /**
+         * Executes a Select query which only reads the given column, without creating any model
+         *
+         * @param column The column to read
+         * @return The values of the column, NULL values are read as 0
+         */
+        public
+        @NonNull
+        int[] pluckInts(@NonNull String column) {
+            return pluckColumns(column).getInts(0);
+        }
+
+        /**
+         * Executes a Select query which only reads the given column, without creating any model
+         *
+         * @param column The column to read
+         * @return The values of the column, NULL values are read as 0
+         */
+        public
+        @NonNull
+        double[] pluckDoubles(@NonNull String column) {
+            return pluckColumns(column).getDoubles(0);
+        }
+
         /**
          * Executes a Select query that expects a single result
          * @return The row returned by the Select query or null
@@ -212,7 +408,7 @@ public class Select extends Query {
         @Nullable
         T queryFirst() {
             return selectFirst(
-                    new Select(mWhere, mJoins, mOrderBy, mLimit),
+                    new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, getIdentityMap()),
                     mClassDef,
                     mDatabaseProvider
             );
@@ -226,7 +422,7 @@ public class Select extends Query {
         @NonNull
         T[] queryAndInit() {
             return selectAndInit(
-                    new Select(mWhere, mJoins, mOrderBy, mLimit),
+                    new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, getIdentityMap()),
                     mClassDef,
                     mDatabaseProvider
             );
@@ -241,7 +437,7 @@ public class Select extends Query {
         @Nullable
         T queryFirstAndInit() {
             return selectFirstAndInit(
-                    new Select(mWhere, mJoins, mOrderBy, mLimit),
+                    new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, getIdentityMap()),
                     mClassDef,
                     mDatabaseProvider
             );
@@ -373,6 +569,56 @@ public class Select extends Query {
             });
         }
 
+        /**
+         * Build the SQL of this select once, to execute it several times with different values for the
+         * Param placeholders of its where clause: Where.field(x).isEqualTo(Param.of("id")).
+         * Only supported by local database providers, the identity map is not used.
+         *
+         * @return The prepared select, which can be shared between threads
+         */
+        public
+        @NonNull
+        PreparedSelect<T> prepare() {
+            if (!(mDatabaseProvider instanceof BaseLocalDatabaseProvider)) {
+                throw new IllegalStateException("prepare() is only supported by local database providers");
+            }
+
+            return new PreparedSelect<>(mClassDef, mDatabaseProvider, toSql(), getArgs(), getTables());
+        }
+
+        /**
+         * Used to nest this select in the where clause of another query, see Where#exists
+         *
+         * @return the SQL of this select, with a ? placeholder for each of its arguments
+         */
+        public
+        @NonNull
+        String toSql() {
+            return getSubQuerySql(new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, null), mClassDef, mDatabaseProvider);
+        }
+
+        /**
+         * @return the arguments of the SQL returned by toSql(), as Long, Double, String, byte[] or null
+         */
+        public
+        @NonNull
+        Object[] getArgs() {
+            return getSubQueryArgs(new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, null));
+        }
+
+        /**
+         * @return the tables read by the SQL returned by toSql()
+         */
+        public
+        @NonNull
+        String[] getTables() {
+            return getSubQueryTables(new Select(mFields, mWhere, mJoins, mOrderBy, mLimit, null), mClassDef, mDatabaseProvider);
+        }
+
+        private IdentityMap getIdentityMap() {
+            return mNewIdentityMap ? new IdentityMap() : mIdentityMap;
+        }
+
         private void addOrderBy(OrderBy orderBy) {
             if (mOrderBy == null) {
                 mOrderBy = new OrderBy[]{orderBy};
@@ -0,0 +1,134 @@
+package net.frju.androidquery.operation.function;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import net.frju.androidquery.database.DbModelDescriptor;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Forward-only result which reads the rows chunk by chunk (ordered by rowid), so the whole result is never
+ * counted nor loaded at once. It can only be iterated once and is automatically closed at the end of the iteration.
+ */
+public abstract class StreamResult<T> implements Iterable<T>, Closeable {
+
+    /**
+     * The alias of the rowid column that chunked cursors must contain
+     */
+    public static final String ROW_ID_COLUMN = "_stream_rowid";
+
+    private final DbModelDescriptor mDbModelDescriptor;
+    private final int mChunkSize;
+    private Cursor mCursor;
+    private int mRowIdIndex = -1;
+    private Long mLastRowId;
+    private boolean mLastChunk;
+    private boolean mIterated;
+
+    public class StreamIterator implements Iterator<T> {
+
+        public boolean hasNext() {
+            if (mCursor != null && mCursor.getPosition() < mCursor.getCount() - 1) {
+                return true;
+            }
+
+            if (!moveToNextChunk()) {
+                close();
+                return false;
+            }
+
+            return true;
+        }
+
+        public
+        @Nullable
+        T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            mCursor.moveToNext();
+            if (mRowIdIndex != -1) {
+                mLastRowId = mCursor.getLong(mRowIdIndex);
+            }
+
+            return mDbModelDescriptor.getSingleResult(mCursor);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove item from StreamResult");
+        }
+    }
+
+    protected StreamResult(@NonNull DbModelDescriptor dbModelDescriptor, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+
+        mDbModelDescriptor = dbModelDescriptor;
+        mChunkSize = chunkSize;
+    }
+
+    /**
+     * Query the next chunk of rows
+     *
+     * @param lastRowId the rowid of the last returned row, or null for the first chunk
+     * @param chunkSize the maximum number of rows to return
+     * @return the cursor of the chunk, which contains the ROW_ID_COLUMN when the result is chunked.
+     * Without it, the cursor is considered as containing the whole result.
+     */
+    protected abstract
+    @Nullable
+    Cursor queryChunk(@Nullable Long lastRowId, int chunkSize);
+
+    @Override
+    public
+    @NonNull
+    Iterator<T> iterator() {
+        if (mIterated) {
+            throw new IllegalStateException("A StreamResult can only be iterated once");
+        }
+
+        mIterated = true;
+        return new StreamIterator();
+    }
+
+    @Override
+    public void close() {
+        if (mCursor != null) {
+            mCursor.close();
+            mCursor = null;
+        }
+
+        mLastChunk = true;
+    }
+
+    private boolean moveToNextChunk() {
+        if (mCursor != null) {
+            mCursor.close();
+            mCursor = null;
+        }
+
+        if (mLastChunk) {
+            return false;
+        }
+
+        mCursor = queryChunk(mLastRowId, mChunkSize);
+        if (mCursor == null) {
+            mLastChunk = true;
+            return false;
+        }
+
+        mRowIdIndex = mCursor.getColumnIndex(ROW_ID_COLUMN);
+
+        // only the rows of that chunk are counted here
+        int count = mCursor.getCount();
+        mLastChunk = mRowIdIndex == -1 || count < mChunkSize;
+
+        return count > 0;
+    }
+}
@@ -0,0 +1,69 @@
+package net.frju.androidquery.operation.function;
+
+import android.support.annotation.NonNull;
+
+import net.frju.androidquery.database.DatabaseProvider;
+import net.frju.androidquery.database.Query;
+
+import java.util.concurrent.Callable;
+
+import io.reactivex.Single;
+
+/**
+ * Executes several queries against the same database provider inside one transaction.
+ * Nested transactions are mapped to SAVEPOINTs and the change notifications are only sent
+ * once the outermost transaction is committed.
+ */
+public class Transaction extends Query {
+
+    private Transaction() {
+    }
+
+    /**
+     * Execute the callable inside a transaction, which is committed only if no exception is thrown
+     *
+     * @param databaseProvider the provider on which the queries of the callable are executed
+     * @param callable         the queries to execute
+     * @return The result of the callable
+     * @throws Exception the exception thrown by the callable, after the rollback
+     */
+    public static <T> T run(@NonNull DatabaseProvider databaseProvider, @NonNull Callable<T> callable) throws Exception {
+        return databaseProvider.runInTransaction(callable);
+    }
+
+    /**
+     * Execute the callable inside a transaction, which is committed only if no exception is thrown
+     *
+     * @param databaseProvider the provider on which the queries of the callable are executed
+     * @param callable         the queries to execute
+     * @return An RxJava Observable
+     */
+    public static
+    @NonNull
+    <T> rx.Single<T> rx(@NonNull final DatabaseProvider databaseProvider, @NonNull final Callable<T> callable) {
+        return wrapRx(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return run(databaseProvider, callable);
+            }
+        });
+    }
+
+    /**
+     * Execute the callable inside a transaction, which is committed only if no exception is thrown
+     *
+     * @param databaseProvider the provider on which the queries of the callable are executed
+     * @param callable         the queries to execute
+     * @return An RxJava2 Observable
+     */
+    public static
+    @NonNull
+    <T> Single<T> rx2(@NonNull final DatabaseProvider databaseProvider, @NonNull final Callable<T> callable) {
+        return wrapRx2(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return run(databaseProvider, callable);
+            }
+        });
+    }
+}
@@ -35,6 +35,7 @@ import io.reactivex.Single;
 public class Update extends Query {
     private Object[] mModels;
     private final ConflictResolution mConflictResolution;
+    private final boolean mNotifyChange;
     private ContentValues mContentValues;
     private Where[] mWheres;
 
@@ -46,6 +47,10 @@ public class Update extends Query {
         return mConflictResolution;
     }
 
+    public boolean shouldNotifyChange() {
+        return mNotifyChange;
+    }
+
     public ContentValues getContentValues() {
         return mContentValues;
     }
@@ -54,13 +59,15 @@ public class Update extends Query {
         return mWheres;
     }
 
-    private Update(ConflictResolution conflictResolution, Object... models) {
+    private Update(ConflictResolution conflictResolution, boolean notifyChange, Object... models) {
         mConflictResolution = conflictResolution;
+        mNotifyChange = notifyChange;
         mModels = models;
     }
 
-    private Update(ConflictResolution conflictResolution, ContentValues contentValues, Where[] wheres) {
+    private Update(ConflictResolution conflictResolution, boolean notifyChange, ContentValues contentValues, Where[] wheres) {
         mConflictResolution = conflictResolution;
+        mNotifyChange = notifyChange;
         mContentValues = contentValues;
         mWheres = wheres;
     }
@@ -74,6 +81,7 @@ public class Update extends Query {
     public static class Builder<T> {
         private T[] mModels;
         private ConflictResolution mConflictResolution = ConflictResolution.CONFLICT_IGNORE;
+        private boolean mNotifyChange = true;
         private ContentValues mValues;
         private Where[] mWhere;
         private final Class<T> mClassDef;
@@ -120,6 +128,19 @@ public class Update extends Query {
             return this;
         }
 
+        /**
+         * Disable the change notification, which can be useful for bulk loads
+         *
+         * @param notifyChange false to not notify the observers of that table. By default it's true.
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Update.Builder<T> withChangeNotification(boolean notifyChange) {
+            mNotifyChange = notifyChange;
+            return this;
+        }
+
         /**
          * Specify the values for the Update query
          *
@@ -153,13 +174,13 @@ public class Update extends Query {
         public int query() {
             if (mModels != null) {
                 return update(
-                        new Update(mConflictResolution, mModels),
+                        new Update(mConflictResolution, mNotifyChange, mModels),
                         mClassDef,
                         mDatabaseProvider
                 );
             } else {
                 return update(
-                        new Update(mConflictResolution, mValues, mWhere),
+                        new Update(mConflictResolution, mNotifyChange, mValues, mWhere),
                         mClassDef,
                         mDatabaseProvider
                 );